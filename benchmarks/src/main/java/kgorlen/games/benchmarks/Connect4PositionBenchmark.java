@@ -0,0 +1,71 @@
+package kgorlen.games.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import kgorlen.games.connect4.Connect4Position;
+
+/**
+ * Connect4Position bitboard primitives used by every search and
+ * playout: win test, legal move mask, and make/unmake of each move.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class Connect4PositionBenchmark {
+
+	/**
+	 * Columns played from the empty board
+	 */
+	@Param({ "d", "dcdecfbeeg", "dcedcedcefgfgbab" })
+	public String moves;
+
+	private Connect4Position position;
+
+	@Setup
+	public void setup() {
+		position = Positions.connect4(moves);
+	}
+
+	@Benchmark
+	public boolean isWin() {
+		return position.isWin();
+	}
+
+	@Benchmark
+	public long moves() {
+		return position.moves();
+	}
+
+	/**
+	 * @return	combined keys of all children, so none is dead code
+	 */
+	@Benchmark
+	public long makeUnmakeMoves() {
+		long keys = 0;
+		for (long m = position.moves(); m != 0; m &= m-1) {
+			final long move = m & -m;
+			position.makeMove(move);
+			keys ^= position.key();
+			position.unmakeMove(move);
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,68 @@
+package kgorlen.games.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import kgorlen.games.DepthFirst;
+import kgorlen.games.Log;
+import kgorlen.games.Variation;
+import kgorlen.games.potion.Ingredient;
+import kgorlen.games.potion.PotionStock;
+
+/**
+ * DepthFirst search for the most potions brewed from a PotionStock,
+ * as in Potion.main().
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DepthFirstPotionBenchmark {
+
+	/**
+	 * Amounts of EON, TOF, WOB, AF, and TOW
+	 */
+	@Param({ "34 59 20 5 20", "0 6 2 0 9" })
+	public String amounts;
+
+	private PotionStock stock;
+	private int maxDepth;
+	private DepthFirst search;
+
+	@Setup
+	public void setup() {
+		Log.LOGGER.setLevel(Level.WARNING);		// no statistics per search
+		stock = new PotionStock();
+		maxDepth = 0;
+		String[] amount = amounts.split(" ");
+		int j = 0;
+		for (Ingredient i : Ingredient.values) {
+			if (i == Ingredient.POTION) continue;	// skip output ingredient
+			stock.setAmount(i, Integer.parseInt(amount[j++]));
+			maxDepth += stock.getAmount(i);		// A reaction consumes at least 1 unit of some ingredient
+		}
+		search = new DepthFirst();
+	}
+
+	@Benchmark
+	public Variation search() {
+		return search.search(stock, maxDepth);
+	}
+}
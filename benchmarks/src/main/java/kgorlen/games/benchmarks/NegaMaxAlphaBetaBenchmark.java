@@ -0,0 +1,58 @@
+package kgorlen.games.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import kgorlen.games.Log;
+import kgorlen.games.NegaMaxAlphaBeta;
+import kgorlen.games.Variation;
+import kgorlen.games.tictactoe.TicTacToePosition;
+
+/**
+ * Complete NegaMaxAlphaBeta searches of fixed Tic-Tac-Toe positions.
+ * Each search starts with a cleared transposition table.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NegaMaxAlphaBetaBenchmark {
+
+	/**
+	 * Squares played from the empty board
+	 */
+	@Param({ "", "1", "52" })
+	public String moves;
+
+	private TicTacToePosition position;
+	private NegaMaxAlphaBeta search;
+
+	@Setup
+	public void setup() {
+		Log.LOGGER.setLevel(Level.WARNING);		// no statistics per search
+		position = Positions.ticTacToe(moves);
+		search = new NegaMaxAlphaBeta();
+	}
+
+	@Benchmark
+	public Variation search() {
+		return search.search(position, 10);
+	}
+}
@@ -0,0 +1,69 @@
+package kgorlen.games.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import kgorlen.games.connect4.Connect4Playout;
+import kgorlen.games.connect4.Connect4Position;
+import kgorlen.games.mcts.PlayoutPolicy;
+import kgorlen.games.mcts.UniformPlayout;
+import kgorlen.games.mcts.WinOrBlockPlayout;
+
+/**
+ * MCTS playouts from a Connect4 position: the bitboard policies
+ * Connect4Position.evaluate() uses, and the generic policies on
+ * MoveGenerator for comparison.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PlayoutBenchmark {
+
+	@Param({ "uniform", "winOrBlock", "genericUniform", "genericWinOrBlock" })
+	public String policy;
+
+	/**
+	 * Columns played from the empty board
+	 */
+	@Param({ "d", "dcdecfbeeg" })
+	public String moves;
+
+	private Connect4Position position;
+	private PlayoutPolicy playoutPolicy;
+	private final Random randGen = new Random(424242424242424247L);
+
+	@Setup
+	public void setup() {
+		position = Positions.connect4(moves);
+		switch (policy) {
+			case "uniform":				playoutPolicy = Connect4Playout.UNIFORM; break;
+			case "winOrBlock":			playoutPolicy = Connect4Playout.WIN_OR_BLOCK; break;
+			case "genericUniform":		playoutPolicy = new UniformPlayout(); break;
+			case "genericWinOrBlock":	playoutPolicy = new WinOrBlockPlayout(); break;
+			default: throw new IllegalArgumentException("Unknown policy: " + policy);
+		}
+	}
+
+	@Benchmark
+	public int playout() {
+		return playoutPolicy.playout(position, randGen, null);
+	}
+}
@@ -0,0 +1,44 @@
+package kgorlen.games.benchmarks;
+
+import kgorlen.games.connect4.Connect4Position;
+import kgorlen.games.tictactoe.TicTacToeMove;
+import kgorlen.games.tictactoe.TicTacToePosition;
+
+/**
+ * Fixed benchmark positions, given as the moves played from the
+ * initial position.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+final class Positions {
+	private Positions() {}
+
+	/**
+	 * @param columns	letters a-g of columns played
+	 * @return			Connect4Position after playing columns
+	 */
+	static Connect4Position connect4(String columns) {
+		Connect4Position p = new Connect4Position();
+		for (char c : columns.toCharArray()) {
+			p.makeMove(p.newMove(c));
+			if (p.isWin() || p.isDraw())
+				throw new IllegalArgumentException("Game over after " + columns);
+		}
+		return p;
+	}
+
+	/**
+	 * @param squares	digits 1-9 of squares played
+	 * @return			TicTacToePosition after playing squares
+	 */
+	static TicTacToePosition ticTacToe(String squares) {
+		TicTacToePosition p = new TicTacToePosition();
+		for (char c : squares.toCharArray()) {
+			p.makeMove(new TicTacToeMove(c - '0'));
+			if (p.isWin() || p.isDraw())
+				throw new IllegalArgumentException("Game over after " + squares);
+		}
+		return p;
+	}
+}
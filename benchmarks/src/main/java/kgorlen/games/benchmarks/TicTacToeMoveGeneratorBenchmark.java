@@ -0,0 +1,54 @@
+package kgorlen.games.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import kgorlen.games.tictactoe.TicTacToeMoveGenerator;
+import kgorlen.games.tictactoe.TicTacToePosition;
+
+/**
+ * TicTacToeMoveGenerator.next(): construct a generator and take every
+ * move, as a full-width search does at each node.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TicTacToeMoveGeneratorBenchmark {
+
+	/**
+	 * Squares played from the empty board
+	 */
+	@Param({ "", "1", "52", "5137" })
+	public String moves;
+
+	private TicTacToePosition position;
+
+	@Setup
+	public void setup() {
+		position = Positions.ticTacToe(moves);
+	}
+
+	@Benchmark
+	public void generateAll(Blackhole bh) {
+		TicTacToeMoveGenerator gen = new TicTacToeMoveGenerator(position);
+		while (gen.hasNext()) bh.consume(gen.next());
+	}
+}
@@ -0,0 +1,73 @@
+package kgorlen.games.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import kgorlen.games.ScoreType;
+import kgorlen.games.SharedTranspositionTable;
+import kgorlen.games.TranspositionTable;
+
+/**
+ * TranspositionTable store() and probe() of random keys, cycling
+ * through more keys than fit in the CPU caches.  The table is filled
+ * before probing, so most probes hit.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TranspositionTableBenchmark {
+	private static final int KEYS = 1 << 20;		// power of 2
+
+	@Param({ "plain", "shared" })
+	public String table;
+
+	@Param({ "64" })
+	public int sizeMB;
+
+	private TranspositionTable transTable;
+	private final long[] keys = new long[KEYS];
+	private final long[] entries = new long[KEYS];
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		transTable = table.equals("shared") ?
+				new SharedTranspositionTable(sizeMB) : new TranspositionTable(sizeMB);
+		Random r = new Random(42);
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = r.nextLong();
+			entries[i] = TranspositionTable.pack(r.nextInt(201) - 100, r.nextInt(20),
+					ScoreType.EXACT, 1 + r.nextInt(TranspositionTable.MAX_MOVE_CODE));
+			transTable.store(keys[i], entries[i]);
+		}
+	}
+
+	@Benchmark
+	public void store() {
+		final int i = next++ & (KEYS-1);
+		transTable.store(keys[i], entries[i]);
+	}
+
+	@Benchmark
+	public long probe() {
+		return transTable.probe(keys[next++ & (KEYS-1)]);
+	}
+}
@@ -13,6 +13,8 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 
 	private long alphaCutoffs;				// Count of alpha cutoffs during search
 	private long betaCutoffs;				// Count of beta cutoffs during search
+	private long firstMoveCutoffs;			// Count of cutoffs by first move searched
+	private int searchThreads = 1;			// Number of threads whose statistics are included
 	private int killerLength;				// Max number of killer moves to try at each ply
 	private ArrayList<Move[]> killerMoves;	// Array of killer moves, indexed by ply
 //	@TODO index killer Moves by search depth
@@ -33,6 +35,16 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 		killerMoves = new ArrayList<Move[]>();
 	}
 
+	/**
+	 * @param transTable	transposition table, possibly shared
+	 * @param killerSize	number of killer moves to save per ply
+	 */
+	AlphaBetaTreeSearch(TranspositionTable transTable, int killerSize) {
+		super(transTable);
+		this.killerLength = killerSize;
+		killerMoves = new ArrayList<Move[]>();
+	}
+
 	/**
 	 * @param ply		Move ply
 	 * @param killer	killer Move to save for specified ply
@@ -45,6 +57,19 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 		moves[0] = killer;
 	}
 	
+	/**
+	 * Expand killer move table through specified ply, so that searches
+	 * running in several threads only read the table's ArrayList.
+	 * Concurrent addKiller() calls may lose a killer, which only
+	 * affects move ordering.
+	 * 
+	 * @param ply	maximum Move ply of search
+	 */
+	protected void expandKillers(int ply) {
+		while (killerMoves.size() <= ply)
+			killerMoves.add(new Move[killerLength]);
+	}
+	
 	protected Move[] getKillers(int ply) {
 		while (killerMoves.size() <= ply)	// expand ArrayList to ply
 			killerMoves.add(new Move[killerLength]);
@@ -59,6 +84,14 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 		return (color > 0) ? ++betaCutoffs : ++alphaCutoffs;
 	}
 	
+	/**
+	 * Count a cutoff by the first move searched, which measures
+	 * move ordering: ideally nearly all cutoffs are first-move.
+	 */
+	protected long incFirstMoveCutoffs() {
+		return ++firstMoveCutoffs;
+	}
+	
 	/**
 	 * Reset the positions searched counter
 	 */
@@ -66,6 +99,37 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 		super.setRoot(root);
 		alphaCutoffs = 0;
 		betaCutoffs = 0;
+		firstMoveCutoffs = 0;
+		searchThreads = 1;
+	}
+	
+	/**
+	 * Add statistics counted outside this instance
+	 * 
+	 * @param positions			positions searched
+	 * @param hits				transposition table hits
+	 * @param alphaCutoffs		alpha cutoffs
+	 * @param betaCutoffs		beta cutoffs
+	 * @param firstMoveCutoffs	cutoffs by first move searched
+	 */
+	protected void addStatistics(long positions, long hits, long alphaCutoffs, long betaCutoffs,
+			long firstMoveCutoffs) {
+		positionsSearched += positions;
+		ttHits += hits;
+		this.alphaCutoffs += alphaCutoffs;
+		this.betaCutoffs += betaCutoffs;
+		this.firstMoveCutoffs += firstMoveCutoffs;
+	}
+	
+	/**
+	 * Add statistics of a helper search of the same root
+	 * 
+	 * @param helper	search run by another thread
+	 */
+	protected void addStatistics(AlphaBetaTreeSearch helper) {
+		addStatistics(helper.positionsSearched, helper.ttHits,
+				helper.alphaCutoffs, helper.betaCutoffs, helper.firstMoveCutoffs);
+		searchThreads += helper.searchThreads;
 	}
 	
 	/**
@@ -75,8 +139,10 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 	public void logStatistics() {
 		super.logStatistics();
 		LOGGER.info(() -> String.format(
-				"  %d alpha cutoffs, %d beta cutoffs%n",
-				getAlphaCutoffs(), getBetaCutoffs() ));
+				"  %d alpha cutoffs, %d beta cutoffs, %.1f%% by first move%n",
+				getAlphaCutoffs(), getBetaCutoffs(), 100*getFirstMoveCutoffRate() ));
+		if (searchThreads > 1) LOGGER.info(() -> String.format(
+				"  %d search threads%n", searchThreads ));
 	}
 	
 	/**
@@ -84,12 +150,21 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 	 */
 	public void printStatistics() {
 		super.printStatistics();
-		System.out.format("%d alpha cutoffs, %d beta cutoffs%n", alphaCutoffs, betaCutoffs);
+		System.out.format("%d alpha cutoffs, %d beta cutoffs, %.1f%% by first move%n",
+				alphaCutoffs, betaCutoffs, 100*getFirstMoveCutoffRate());
+	}
+
+	/**
+	 * @param searchThreads number of threads that ran the search
+	 */
+	protected void setSearchThreads(int searchThreads) {
+		this.searchThreads = searchThreads;
 	}
 
 	/**
 	 * @return the alphaCutoffs
 	 */
+	@Override
 	public long getAlphaCutoffs() {
 		return alphaCutoffs;
 	}
@@ -97,8 +172,25 @@ public abstract class AlphaBetaTreeSearch extends TreeSearch {
 	/**
 	 * @return the betaCutoffs
 	 */
+	@Override
 	public long getBetaCutoffs() {
 		return betaCutoffs;
 	}
 
+	/**
+	 * @return the firstMoveCutoffs
+	 */
+	public long getFirstMoveCutoffs() {
+		return firstMoveCutoffs;
+	}
+
+	/**
+	 * @return	fraction of cutoffs by first move searched, 0 if none
+	 */
+	@Override
+	public double getFirstMoveCutoffRate() {
+		final long cutoffs = alphaCutoffs + betaCutoffs;
+		return cutoffs > 0 ? (double) firstMoveCutoffs / cutoffs : 0;
+	}
+
 }
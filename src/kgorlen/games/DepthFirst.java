@@ -25,9 +25,9 @@ public class DepthFirst extends TreeSearch {
 		LOGGER.fine(() -> String.format("%s{ DepthFirst(%d) position:%n%s", 
 				indent, depth, parent.toString(indent) ));
 
-		TTEntry ttEntry = getTTEntry(parent);
-		if (ttEntry != null) {
-			final int ttScore = ttEntry.getScore();
+		final long ttEntry = probeTTEntry(parent);
+		if (ttEntry != 0) {
+			final int ttScore = TranspositionTable.getScore(ttEntry);
 			ttHits++;
 			LOGGER.fine(() -> String.format(
 					"%s} DepthFirst(%d) returning transposition score=%d%n",
@@ -51,11 +51,10 @@ public class DepthFirst extends TreeSearch {
 		while (gen.hasNext()) {
 			Move move = gen.next();
 			positionsSearched++;
-			Position child = parent.copy();
-			child.makeMove(move);
-
+			parent.makeMove(move);
 			LOGGER.fine(() -> String.format("%sSearch move %s ...%n", indent, move.toString() ));
-			score = search(child, depth-1, indent + "    ");
+			score = search(parent, depth-1, indent + "    ");
+			parent.unmakeMove(move);
 
 			final int logScore = score;
 			LOGGER.fine(() -> String.format("%s... Move %s score=%d%n",
@@ -64,8 +63,7 @@ public class DepthFirst extends TreeSearch {
 			if (score > bestScore) {
 				bestScore = score;
 				bestMove = move;
-				ttEntry = parent.newTTentry(depth, bestScore, bestMove);
-				putTTEntry(parent, ttEntry);
+				storeTTEntry(parent, depth, ScoreType.EXACT, bestScore, bestMove);
 				LOGGER.fine(() -> String.format("%sPrincipal variation:%n%s",
 						indent, this.getPrincipalVariation(parent).toString(indent) ));
 			}
@@ -86,9 +84,9 @@ public class DepthFirst extends TreeSearch {
 	@Override
 	public Variation search(Position root, int depth) {
 		setRoot(root);
-		elapsedTime();
-		search(root, depth, "");
-		elapsedTime();
+		startTiming();
+		search(root.copy(), depth, "");		// made/unmade moves change position
+		stopTiming();
 		logStatistics();
 		Variation pvar = getPrincipalVariation();
 		Variation.logPrincipalVariation(pvar, CLASS_NAME);
@@ -32,6 +32,16 @@ public interface GamePosition extends Position {
 	 */
 	public String sideLastMoved();
 
+	/**
+	 * Unlike moveGenerator(), which may skip moves equivalent by a
+	 * symmetry of this position, generate every legal move, so that
+	 * random playouts sample the legal moves uniformly and perft
+	 * counts the full game tree.
+	 * 
+	 * @return	generator of all legal moves
+	 */
+	public MoveGenerator allMoves();
+
 	/**
      * @return	<code>true</code> if last move resulted in a win
      */
@@ -0,0 +1,68 @@
+package kgorlen.games;
+
+/**
+ * MoveGenerator that returns the best move saved in the transposition
+ * table first, then the moves of another MoveGenerator except that one.
+ * In an iterative-deepening search the saved move is the principal
+ * variation move of the previous iteration.
+ *
+ * References:
+ * 	https://chessprogramming.wikispaces.com/Hash+Move
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class HashMoveGenerator implements MoveGenerator {
+	private Move hashMove;				// Move to return first, null once returned
+	private final Move skipMove;		// Move not to return again
+	private final MoveGenerator gen;	// Remaining moves
+	private Move nextMove;				// Next move from gen, or null
+
+	/**
+	 * @param hashMove	valid Move to return first
+	 * @param gen		MoveGenerator for all moves
+	 */
+	public HashMoveGenerator(Move hashMove, MoveGenerator gen) {
+		this.hashMove = hashMove;
+		this.skipMove = hashMove;
+		this.gen = gen;
+		advance();
+	}
+
+	/**
+	 * Get next move from gen that is not the hash move
+	 */
+	private void advance() {
+		nextMove = null;
+		while (gen.hasNext()) {
+			Move m = gen.next();
+			if (!skipMove.equals(m)) {
+				nextMove = m;
+				return;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.MoveGenerator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		return hashMove != null || nextMove != null;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.MoveGenerator#next()
+	 */
+	@Override
+	public Move next() {
+		if (hashMove != null) {
+			Move m = hashMove;
+			hashMove = null;
+			return m;
+		}
+		Move m = nextMove;
+		advance();
+		return m;
+	}
+}
@@ -26,9 +26,9 @@ public class MiniMax extends TreeSearch {
 				"%s{ %s.search(%s) maximize=%b, position:%n%s",
 					indent, CLASS_NAME, parent.sideToMove(), maximize, parent.toString(indent) ));
 
-		TTEntry ttEntry = getTTEntry(parent);
-		if (ttEntry != null) {
-			final int ttScore = ttEntry.getScore();
+		final long ttEntry = probeTTEntry(parent);
+		if (ttEntry != 0) {
+			final int ttScore = TranspositionTable.getScore(ttEntry);
 			ttHits++;
 			LOGGER.fine(() -> String.format(
 					"%s} %s.search(%s) returning transposition score=%d%n",
@@ -69,14 +69,13 @@ public class MiniMax extends TreeSearch {
 			while (gen.hasNext()) {
 				positionsSearched++;
 				Move move = gen.next();
-				GamePosition child = parent.copy();
-				child.makeMove(move);
-				int score = search(child, depth-1, false, indent + "    ");
+				parent.makeMove(move);
+				int score = search(parent, depth-1, false, indent + "    ");
+				parent.unmakeMove(move);
 				if (score > bestScore) {
 					bestScore = score;
 					bestMove = move;
-					ttEntry = parent.newTTentry(depth, ScoreType.EXACT, bestScore, bestMove);
-					putTTEntry(parent, ttEntry);
+					storeTTEntry(parent, depth, ScoreType.EXACT, bestScore, bestMove);
 					LOGGER.fine(() -> String.format("%sPrincipal variation:%n%s",
 							indent, this.getPrincipalVariation(parent).toString(indent) ));
 				}
@@ -86,14 +85,13 @@ public class MiniMax extends TreeSearch {
 			while (gen.hasNext()) {
 				positionsSearched++;
 				Move move = gen.next();
-				GamePosition child = parent.copy();
-				child.makeMove(move);
-				int score = search(child, depth-1, true, indent + "    ");
+				parent.makeMove(move);
+				int score = search(parent, depth-1, true, indent + "    ");
+				parent.unmakeMove(move);
 				if (score < bestScore) {
 					bestScore = score;
 					bestMove = move;
-					ttEntry = parent.newTTentry(depth, ScoreType.EXACT, bestScore, bestMove);
-					putTTEntry(parent, ttEntry);
+					storeTTEntry(parent, depth, ScoreType.EXACT, bestScore, bestMove);
 					LOGGER.fine(() -> String.format("%sPrincipal variation:%n%s",
 							indent, this.getPrincipalVariation(parent).toString(indent) ));
 				}
@@ -115,9 +113,9 @@ public class MiniMax extends TreeSearch {
 	@Override
 	public Variation search(Position root, int maxDepth) {
 		setRoot(root);
-		elapsedTime();
-		search((GamePosition) root, maxDepth, root.scoreSign() > 0, "");
-		elapsedTime();
+		startTiming();
+		search((GamePosition) root.copy(), maxDepth, root.scoreSign() > 0, "");	// made/unmade moves change position
+		stopTiming();
 		logStatistics();
 		Variation pvar = getPrincipalVariation();
 		Variation.logPrincipalVariation(pvar, CLASS_NAME);
@@ -29,9 +29,9 @@ public class NegaMax extends TreeSearch {
 				"%s{ %s.search(%s) color=%d, position:%n%s",
 					indent, CLASS_NAME, parent.sideToMove(), color, parent.toString(indent) ));
 
-		TTEntry ttEntry = getTTEntry(parent);
-		if (ttEntry != null) {
-			final int ttScore = ttEntry.getScore();
+		final long ttEntry = probeTTEntry(parent);
+		if (ttEntry != 0) {
+			final int ttScore = TranspositionTable.getScore(ttEntry);
 			ttHits++;
 			LOGGER.fine(() -> String.format(
 					"%s} %s.search(%s) returning transposition score=%d%n",
@@ -69,14 +69,13 @@ public class NegaMax extends TreeSearch {
 		while (gen.hasNext()) {
 			Move move = gen.next();
 			positionsSearched++;
-			GamePosition child = parent.copy();
-			child.makeMove(move);
-			score = -search(child, depth-1, indent + "    ");
+			parent.makeMove(move);
+			score = -search(parent, depth-1, indent + "    ");
+			parent.unmakeMove(move);
 			if (score > bestScore) {
 				bestScore = score;
 				bestMove = move;
-				ttEntry = parent.newTTentry(depth, ScoreType.EXACT, bestScore, bestMove);
-				putTTEntry(parent, ttEntry);
+				storeTTEntry(parent, depth, ScoreType.EXACT, bestScore, bestMove);
 				LOGGER.fine(() -> String.format("%sPrincipal variation:%n%s",
 						indent, this.getPrincipalVariation(parent).toString(indent) ));
 			}
@@ -97,9 +96,9 @@ public class NegaMax extends TreeSearch {
 	@Override
 	public Variation search(Position root, int maxDepth) {
 		setRoot(root);
-		elapsedTime();
-		search((GamePosition) root, maxDepth, "");
-		elapsedTime();
+		startTiming();
+		search((GamePosition) root.copy(), maxDepth, "");	// made/unmade moves change position
+		stopTiming();
 		logStatistics();
 		Variation pvar = getPrincipalVariation();
 		Variation.logPrincipalVariation(pvar, CLASS_NAME);
@@ -2,14 +2,68 @@ package kgorlen.games;
 
 import kgorlen.games.MoveGenerator;
 
+import java.util.ArrayList;
 import java.util.logging.Logger;
 
 import kgorlen.games.GamePosition;
-import kgorlen.games.TTEntry;
 
 public class NegaMaxAlphaBeta extends AlphaBetaTreeSearch {
 	private final static Logger LOGGER = Log.LOGGER;
 	private static final String CLASS_NAME = NegaMaxAlphaBeta.class.getName();
+
+	private final int threads;					// Number of search threads
+	private volatile boolean stopped;			// Set to abandon search
+	private NegaMaxAlphaBeta[] helpers;			// Lazy SMP helper searches
+	private Thread[] helperThreads;				// Threads running helpers
+	private long budgetStart;					// System.nanoTime() at start of budget
+	private long timeBudget = Long.MAX_VALUE;	// Nanoseconds allowed for search
+	private long positionBudget = Long.MAX_VALUE;	// Positions allowed for search
+	private int rootPly;						// Ply of root of current search
+	private Move[][] pvTable;					// Triangular PV array of main search, indexed by ply from root
+	private int[] pvLength;						// Number of moves in each row of pvTable
+	private Variation mainPV;					// PV of last completed Lazy SMP search
+	
+	public NegaMaxAlphaBeta() {
+		super();
+		threads = 1;
+	}
+
+	/**
+	 * Lazy SMP parallel search: threads-1 helper threads search the
+	 * same root concurrently with the main search, sharing one
+	 * transposition table.  Helpers differ in the depths they search
+	 * and in the root move they try first, so they fill the table
+	 * with results the main search can use.
+	 * 
+	 * Helpers overwrite table entries along the main search's
+	 * principal variation with scores of their own searches, so the
+	 * principal variation is collected by the main search in a
+	 * triangular array rather than read back from the table.  The
+	 * main search does not take an exact score or lower bound from the
+	 * table that is within its alpha-beta window, since that position
+	 * may be on the principal variation; it searches it instead.
+	 * 
+	 * References:
+	 * 	https://chessprogramming.wikispaces.com/Lazy+SMP
+	 * 
+	 * @param threads	number of search threads, including the caller
+	 * @param ttSizeMB	transposition table size in megabytes
+	 */
+	public NegaMaxAlphaBeta(int threads, int ttSizeMB) {
+		super(threads > 1 ? new SharedTranspositionTable(ttSizeMB)
+				: new TranspositionTable(ttSizeMB), 2);
+		this.threads = threads;
+	}
+
+	/**
+	 * Construct a Lazy SMP helper
+	 * 
+	 * @param transTable	table shared with main search
+	 */
+	private NegaMaxAlphaBeta(TranspositionTable transTable) {
+		super(transTable, 2);
+		threads = 1;
+	}
 	
 	/**
 	 * References:
@@ -34,24 +88,29 @@ public class NegaMaxAlphaBeta extends AlphaBetaTreeSearch {
 		final int alphaOrig = alpha;
 		final int betaOrig = alpha;
 		int color = parent.scoreSign();
+		final int ply = parent.getPly() - rootPly;
+		if (pvTable != null) pvLength[ply] = 0;
 
 		LOGGER.fine(() -> String.format(
 				"%s{ Entering %s.search(%s) depth=%d, alpha=%s, beta=%d, color=%d, position:%n%s",
 					indent, CLASS_NAME, parent.sideToMove(), depth, alphaOrig, betaOrig, color, parent.toString(indent) ));
 
-		final TTEntry ttEntry = getTTEntry(parent);
-		if (ttEntry != null && ttEntry.getDepth() >= depth) {
+		final long ttEntry = probeTTEntry(parent);
+		if (ttEntry != 0 && TranspositionTable.getDepth(ttEntry) >= depth) {
 			ttHits++;
-			final int ttScore = ttEntry.getScore();
-			switch (ttEntry.getScoreType()) {
+			final int ttScore = TranspositionTable.getScore(ttEntry);
+			final ScoreType ttScoreType = TranspositionTable.getScoreType(ttEntry);
+			switch (ttScoreType) {
 			case INVALID:
 				throw new RuntimeException("Invalid score type");
 			case EXACT:
+				if (pvTable != null && ttScore > alpha && ttScore < beta) break;	// search to collect PV
 				LOGGER.fine(() -> String.format(
 						"%s} %s.search(%s) returning transposition %s score=%d%n",
-						indent, CLASS_NAME, parent.sideToMove(), ttEntry.getScoreType(), ttScore));
+						indent, CLASS_NAME, parent.sideToMove(), ttScoreType, ttScore));
 				return ttScore;
 			case LOWERBOUND:
+				if (pvTable != null && ttScore < beta) break;	// search to collect PV
 				if (ttScore > alpha) alpha = ttScore;
 				break;
 			case UPPERBOUND:
@@ -61,7 +120,7 @@ public class NegaMaxAlphaBeta extends AlphaBetaTreeSearch {
 			if (alpha >= beta) {
 				LOGGER.fine(() -> String.format(
 						"%s} %s.search(%s) returning transposition %s score=%d%n",
-						indent, CLASS_NAME, parent.sideToMove(), ttEntry.getScoreType(), ttScore));
+						indent, CLASS_NAME, parent.sideToMove(), ttScoreType, ttScore));
 				return ttScore;
 			}
 		}		
@@ -95,20 +154,32 @@ public class NegaMaxAlphaBeta extends AlphaBetaTreeSearch {
 		ScoreType scoreType = ScoreType.INVALID;
 		Move bestMove = null;
 		MoveGenerator gen = parent.moveGenerator(getKillers(parent.getPly()));		
+		if (ttEntry != 0) {						// try best move of shallower search first
+			final Move hashMove = parent.decodeMove(TranspositionTable.getMoveCode(ttEntry));
+			if (hashMove != null && parent.isValidMove(hashMove)) gen = new HashMoveGenerator(hashMove, gen);
+		}
 		assert gen.hasNext() : "Unexpected terminal position";
+		int movesSearched = 0;
 		while (gen.hasNext()) {
+			if (stopped) return bestScore;		// abandoned, do not save result
+			if (overBudget()) {
+				stopped = true;
+				return bestScore;
+			}
 			positionsSearched++;
+			movesSearched++;
 			Move move = gen.next();
-			GamePosition child = parent.copy();
-			child.makeMove(move);
+			parent.makeMove(move);
 			LOGGER.fine(() -> String.format(
 					"%sSearch move %s ...%n", indent, move.toString() ));
-			final int evalScore = score = -search(child, depth-1, -beta, -alpha, indent + "    ");
+			final int evalScore = score = -search(parent, depth-1, -beta, -alpha, indent + "    ");
+			parent.unmakeMove(move);
 			LOGGER.fine(() -> String.format(
 					"%s... Move %s score=%d%n", indent, move.toString(), evalScore ));
 			if (score > bestScore) {
 				bestScore = score;
 				bestMove = move;
+				if (pvTable != null && score > alphaOrig && score < beta) updatePV(ply, move);
 			}
 			if (score > alpha) alpha = score;	// possible PV-node
 			if (alpha >= beta) {				// searched a Cut-Node
@@ -121,21 +192,37 @@ public class NegaMaxAlphaBeta extends AlphaBetaTreeSearch {
 			scoreType = ScoreType.UPPERBOUND;
 		} else if (bestScore >= beta) {			// searched a Cut-Node
 			scoreType = ScoreType.LOWERBOUND;
-			incCutoffs(color);			
+			incCutoffs(color);
+			if (movesSearched == 1) incFirstMoveCutoffs();
 //			bestScore = beta;					// for fail-hard pruning?
 		} else scoreType = ScoreType.EXACT;		// searched a PV-Node
 		
-		final TTEntry newTTentry = parent.newTTentry(depth, scoreType, bestScore, bestMove);
-		putTTEntry(parent, newTTentry);
+		if (stopped) return bestScore;			// abandoned, do not save result
+		storeTTEntry(parent, depth, scoreType, bestScore, bestMove);
 
-		LOGGER.fine(() -> newTTentry.getScoreType() == ScoreType.EXACT ?
+		final ScoreType logScoreType = scoreType;
+		final int logScore = bestScore;
+		LOGGER.fine(() -> logScoreType == ScoreType.EXACT ?
 				getPrincipalVariation(parent).toString(indent) :
 					String.format("%s} %s.search(%s) returning %s score=%d%n",
-							indent, CLASS_NAME, parent.sideToMove(), newTTentry.getScoreType(), newTTentry.getScore() ));
+							indent, CLASS_NAME, parent.sideToMove(), logScoreType, logScore ));
 
 		return bestScore;
 	}
 
+	/**
+	 * Set the principal variation from ply to move followed by the
+	 * principal variation from ply+1
+	 * 
+	 * @param ply	plies from root
+	 * @param move	best move at ply
+	 */
+	private void updatePV(int ply, Move move) {
+		pvTable[ply][0] = move;
+		System.arraycopy(pvTable[ply+1], 0, pvTable[ply], 1, pvLength[ply+1]);
+		pvLength[ply] = pvLength[ply+1] + 1;
+	}
+
 	/**
 	 * @param root		root GamePosition to be searched
 	 * @param maxDepth	maximum depth to search
@@ -144,12 +231,174 @@ public class NegaMaxAlphaBeta extends AlphaBetaTreeSearch {
 	@Override
 	public Variation search(Position root, int maxDepth) {
 		setRoot(root);
-		elapsedTime();
-		search((GamePosition) root, maxDepth, -TreeSearch.SCORE_INFINITY, +TreeSearch.SCORE_INFINITY, "");
-		elapsedTime();
+		startTiming();
+		searchDepth((GamePosition) root.copy(), maxDepth);	// made/unmade moves change position
+		stopTiming();
 		logStatistics();
 		Variation pvar = getPrincipalVariation();
 		Variation.logPrincipalVariation(pvar, CLASS_NAME);
 		return pvar;
 	}
+
+	/**
+	 * Iterative deepening: search root to depth 1, 2, ... maxDepth
+	 * until the time or position budget runs out.  The transposition
+	 * table is kept between iterations, so each iteration reuses the
+	 * scores of the previous one and tries its best moves first.  The
+	 * first iteration always completes.
+	 * 
+	 * References:
+	 * 	https://chessprogramming.wikispaces.com/Iterative+Deepening
+	 * 
+	 * @param root			root GamePosition to be searched
+	 * @param maxDepth		maximum depth to search
+	 * @param timeLimit		milliseconds allowed, or 0 for no limit
+	 * @param positionLimit	positions allowed, or 0 for no limit
+	 * @return				principal Variation of deepest completed iteration
+	 */
+	public Variation search(Position root, int maxDepth, long timeLimit, long positionLimit) {
+		setRoot(root);
+		startTiming();
+		budgetStart = System.nanoTime();
+		GamePosition position = (GamePosition) root.copy();	// made/unmade moves change position
+		Variation pvar = null;
+		int depth;
+		for (depth = 1; depth <= maxDepth; depth++) {
+			if (!searchDepth(position, depth)) break;
+			pvar = getPrincipalVariation();
+			final int logDepth = depth;
+			final Variation logPvar = pvar;
+			LOGGER.fine(() -> String.format("%s iteration depth %d complete:%n%s",
+					CLASS_NAME, logDepth, logPvar.toString() ));
+			if (timeLimit > 0) timeBudget = timeLimit * 1000000;
+			if (positionLimit > 0) positionBudget = positionLimit;
+		}
+		timeBudget = Long.MAX_VALUE;
+		positionBudget = Long.MAX_VALUE;
+		setSearchThreads(threads);			// not one per iteration
+		stopTiming();
+		logStatistics();
+		final int completed = depth - 1;
+		LOGGER.info(() -> String.format("  %d iterations completed%n", completed));
+		Variation.logPrincipalVariation(pvar, CLASS_NAME);
+		return pvar;
+	}
+
+	/**
+	 * Search to specified depth, with Lazy SMP helpers if enabled
+	 * 
+	 * @param root		root GamePosition to be searched
+	 * @param depth		depth to search
+	 * @return			true if search completed within budget
+	 */
+	private boolean searchDepth(GamePosition root, int depth) {
+		stopped = false;
+		rootPly = root.getPly();
+		if (threads > 1) {
+			pvTable = new Move[depth+1][depth+1];
+			pvLength = new int[depth+2];
+		}
+		startHelpers(root, depth);
+		final int score = search(root, depth, -TreeSearch.SCORE_INFINITY, +TreeSearch.SCORE_INFINITY, "");
+		final boolean completed = !stopped;
+		stopHelpers();
+		if (completed && pvTable != null) {
+			mainPV = getRoot().newVariation(score);
+			for (int i = 0; i < pvLength[0]; i++) mainPV.addMove(pvTable[0][i]);
+		}
+		pvTable = null;
+		pvLength = null;
+		return completed;
+	}
+
+	/**
+	 * Reset the principal variation of the last Lazy SMP search
+	 */
+	@Override
+	public void setRoot(Position root) {
+		super.setRoot(root);
+		mainPV = null;
+	}
+
+	/**
+	 * @return	principal variation of the main search if searched
+	 * 			with Lazy SMP helpers, otherwise from the
+	 * 			transposition table (may be null)
+	 */
+	@Override
+	public Variation getPrincipalVariation() {
+		return mainPV != null ? mainPV : super.getPrincipalVariation();
+	}
+
+	/**
+	 * @return		score of root Position
+	 */
+	@Override
+	public int getScore() {
+		return mainPV != null ? mainPV.getScore() : super.getScore();
+	}
+
+	/**
+	 * @return		best move found from root Position
+	 */
+	@Override
+	public Move getMove() {
+		return mainPV != null ? mainPV.getMove() : super.getMove();
+	}
+
+	/**
+	 * Check the search budget, reading the clock only every 1024
+	 * positions.
+	 * 
+	 * @return	true if the time or position budget is exhausted
+	 */
+	private boolean overBudget() {
+		if (positionsSearched >= positionBudget) return true;
+		return (positionsSearched & 0x3ff) == 0
+				&& System.nanoTime() - budgetStart > timeBudget;
+	}
+
+	/**
+	 * Start Lazy SMP helpers.  Each helper searches its own copy of
+	 * the root.  Odd-numbered helpers search one ply beyond maxDepth,
+	 * and helper i tries root move i first (as a killer move), so
+	 * helpers diverge instead of repeating the main search.
+	 * 
+	 * @param root		root GamePosition to be searched
+	 * @param maxDepth	maximum depth of main search
+	 */
+	private void startHelpers(GamePosition root, int maxDepth) {
+		helpers = new NegaMaxAlphaBeta[threads-1];
+		helperThreads = new Thread[threads-1];
+		ArrayList<Move> rootMoves = new ArrayList<Move>();
+		for (MoveGenerator gen = root.moveGenerator(); gen.hasNext(); ) rootMoves.add(gen.next());
+		for (int i = 0; i < helpers.length; i++) {
+			final NegaMaxAlphaBeta helper = helpers[i] = new NegaMaxAlphaBeta(getTranspositionTable());
+			final GamePosition helperRoot = root.copy();
+			final int depth = maxDepth + (i & 1);
+			if (!rootMoves.isEmpty()) helper.addKiller(root.getPly(), rootMoves.get(i % rootMoves.size()));
+			helperThreads[i] = new Thread(() -> {
+				helper.search(helperRoot, depth, -TreeSearch.SCORE_INFINITY, +TreeSearch.SCORE_INFINITY, "");
+			}, String.format("%s helper %d", CLASS_NAME, i+1));
+			helperThreads[i].setDaemon(true);
+			helperThreads[i].start();
+		}
+	}
+
+	/**
+	 * Stop Lazy SMP helpers and add their statistics to this search
+	 */
+	private void stopHelpers() {
+		for (NegaMaxAlphaBeta helper : helpers) helper.stopped = true;
+		for (Thread t : helperThreads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		for (NegaMaxAlphaBeta helper : helpers) addStatistics(helper);
+		helpers = null;
+		helperThreads = null;
+	}
 }
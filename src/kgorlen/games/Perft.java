@@ -0,0 +1,256 @@
+package kgorlen.games;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Performance test: count the leaf nodes of the game tree to a fixed
+ * depth, as generated by GamePosition.allMoves().  The counts check
+ * move generators against known values after a change, and the
+ * leaves/s rate measures raw move generation speed.
+ *
+ * A won position has no moves, since the game is over, so it is only
+ * counted at the full depth.  With the distinct option, moves are
+ * generated by moveGenerator() instead, which skips moves equivalent
+ * by a symmetry of a symmetric position, so counts are of distinct
+ * moves only.
+ *
+ * Options:
+ *
+ * 		divide		count separately under each root move
+ * 		distinct	count only distinct moves of symmetric positions
+ * 		threads=n	count subtrees in parallel with n ForkJoin threads
+ * 		hash=MB		cache subtree counts by key and depth
+ *
+ * Subtree counts are cached by the key of the canonical image of a
+ * position, since symmetric positions have equal counts.  The cache
+ * is shared by threads without locking, as SharedTranspositionTable.
+ *
+ * References:
+ * 	https://chessprogramming.wikispaces.com/Perft
+ * 	https://chessprogramming.wikispaces.com/Perft+Results
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class Perft {
+	public static final int SPLIT_DEPTH = 5;	// subtrees this deep counted serially
+	private static final int COUNT_BITS = 56;	// depth in bits 56-63 of cached count
+
+	private final ForkJoinPool pool;		// null if serial
+	private final boolean distinct;			// count moveGenerator() moves
+	private final long[] hashKeys;			// key ^ data, null if no cache
+	private final long[] hashData;			// depth<<COUNT_BITS | count
+	private final int hashShift;
+	private final LongAdder hashHits = new LongAdder();
+
+	/**
+	 * @param threads	number of threads, 1 to count serially
+	 * @param hashMB	approximate cache size in megabytes, 0 for none
+	 * @param distinct	true to count only distinct moves
+	 */
+	public Perft(int threads, int hashMB, boolean distinct) {
+		assert threads > 0 : "Invalid number of threads: " + threads;
+		pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		this.distinct = distinct;
+		if (hashMB > 0) {
+			final long entries = Long.highestOneBit(Math.min(((long) hashMB << 20) / 16, 1<<30));
+			hashKeys = new long[(int) entries];
+			hashData = new long[(int) entries];
+			hashShift = 64 - Long.numberOfTrailingZeros(entries);
+		} else {
+			hashKeys = null;
+			hashData = null;
+			hashShift = 64;
+		}
+	}
+
+	public Perft(int threads, int hashMB) {
+		this(threads, hashMB, false);
+	}
+
+	public Perft() {
+		this(1, 0);
+	}
+
+	/**
+	 * @param p	position
+	 * @return	generator of moves counted from p
+	 */
+	private MoveGenerator moves(GamePosition p) {
+		return distinct ? p.moveGenerator() : p.allMoves();
+	}
+
+	/**
+	 * @param key	canonical key of position
+	 * @param depth	depth of subtree
+	 * @return		cache index
+	 */
+	private int hashIndex(long key, int depth) {
+		if (hashShift == 64) return 0;
+		return (int) (((key ^ depth * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L) >>> hashShift);
+	}
+
+	/**
+	 * @return	cached leaf count of subtree, or -1 if not cached
+	 */
+	private long probe(long key, int depth) {
+		final int i = hashIndex(key, depth);
+		final long data = hashData[i];
+		final long check = hashKeys[i];
+		if (data == 0 || (check ^ data) != key || (int) (data >>> COUNT_BITS) != depth) return -1;
+		hashHits.increment();
+		return data & ((1L << COUNT_BITS) - 1);
+	}
+
+	private void store(long key, int depth, long count) {
+		final int i = hashIndex(key, depth);
+		final long data = (long) depth << COUNT_BITS | count;
+		hashKeys[i] = key ^ data;
+		hashData[i] = data;
+	}
+
+	/**
+	 * Count leaves serially
+	 *
+	 * @param p		position, restored on return
+	 * @param depth	plies to search
+	 * @return		number of leaves
+	 */
+	private long count(GamePosition p, int depth) {
+		if (depth == 0) return 1;
+		if (p.isWin()) return 0;
+		MoveGenerator gen = moves(p);
+		long n = 0;
+		if (depth == 1) {		// bulk count
+			for (; gen.hasNext(); gen.next()) n++;
+			return n;
+		}
+		final long key = hashKeys != null ? p.key(p.symmetry()) : 0;
+		if (hashKeys != null) {
+			final long cached = probe(key, depth);
+			if (cached >= 0) return cached;
+		}
+		while (gen.hasNext()) {
+			Move move = gen.next();
+			p.makeMove(move);
+			n += count(p, depth-1);
+			p.unmakeMove(move);
+		}
+		if (hashKeys != null) store(key, depth, n);
+		return n;
+	}
+
+	/**
+	 * Count leaves of a subtree, forking a task per move until the
+	 * subtrees are at most SPLIT_DEPTH deep.
+	 */
+	@SuppressWarnings("serial")
+	private class PerftTask extends RecursiveTask<Long> {
+		private final GamePosition position;
+		private final int depth;
+
+		PerftTask(GamePosition position, int depth) {
+			this.position = position;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			if (depth <= SPLIT_DEPTH || position.isWin()) return count(position, depth);
+			final long key = hashKeys != null ? position.key(position.symmetry()) : 0;
+			if (hashKeys != null) {
+				final long cached = probe(key, depth);
+				if (cached >= 0) return cached;
+			}
+			List<PerftTask> tasks = new ArrayList<PerftTask>();
+			for (MoveGenerator gen = moves(position); gen.hasNext(); ) {
+				GamePosition child = position.copy();
+				child.makeMove(gen.next());
+				tasks.add(new PerftTask(child, depth-1));
+			}
+			long n = 0;
+			for (PerftTask task : invokeAll(tasks)) n += task.join();
+			if (hashKeys != null) store(key, depth, n);
+			return n;
+		}
+	}
+
+	/**
+	 * @param start	position to count from, not changed
+	 * @param depth	plies to search
+	 * @return		number of leaves
+	 */
+	public long perft(GamePosition start, int depth) {
+		assert depth >= 0 : "Invalid depth: " + depth;
+		if (pool == null) return count(start.copy(), depth);
+		return pool.invoke(new PerftTask(start.copy(), depth));
+	}
+
+	/**
+	 * @param start	position to count from, not changed
+	 * @param depth	plies to search, > 0
+	 * @return		number of leaves after each root move, in generated order
+	 */
+	public Map<Move, Long> divide(GamePosition start, int depth) {
+		assert depth > 0 : "Invalid depth: " + depth;
+		Map<Move, Long> counts = new LinkedHashMap<Move, Long>();
+		if (start.isWin()) return counts;
+		for (MoveGenerator gen = moves(start); gen.hasNext(); ) {
+			Move move = gen.next();
+			GamePosition child = start.copy();
+			child.makeMove(move);
+			counts.put(move, perft(child, depth-1));
+		}
+		return counts;
+	}
+
+	/**
+	 * @return	number of subtree counts found in cache
+	 */
+	public long getHashHits() {
+		return hashHits.sum();
+	}
+
+	/**
+	 * Run perft from the command line of a game's perft tool
+	 *
+	 * @param start	position to count from
+	 * @param args	depth [divide] [distinct] [threads=n] [hash=MB]
+	 */
+	public static void run(GamePosition start, String[] args) {
+		final int depth = Integer.parseInt(args[0]);
+		boolean divide = false;
+		boolean distinct = false;
+		int threads = 1;
+		int hashMB = 0;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("divide")) divide = true;
+			else if (args[i].equals("distinct")) distinct = true;
+			else if (args[i].startsWith("threads=")) threads = Integer.parseInt(args[i].substring(8));
+			else if (args[i].startsWith("hash=")) hashMB = Integer.parseInt(args[i].substring(5));
+			else throw new IllegalArgumentException("Unknown option: " + args[i]);
+		}
+
+		System.out.print(start.toString());
+		Perft perft = new Perft(threads, hashMB, distinct);
+		long startTime = System.nanoTime();
+		long leaves = 0;
+		if (divide) {
+			for (Map.Entry<Move, Long> e : perft.divide(start, depth).entrySet()) {
+				System.out.format("%s: %d%n", e.getKey().toString(), e.getValue());
+				leaves += e.getValue();
+			}
+		} else {
+			leaves = perft.perft(start, depth);
+		}
+		long elapsedTime = Math.max(System.nanoTime() - startTime, 1);
+		System.out.format("perft(%d) = %d leaves in %fs (%,d leaves/s), %d threads, %d hash hits%n",
+				depth, leaves, elapsedTime/1E9, (long) (leaves*1E9/elapsedTime), threads, perft.getHashHits());
+	}
+}
@@ -41,6 +41,31 @@ public interface Position {
 	 */
 	public void makeMove(Move m);
 
+	/**
+	 * Take back specified move, which must be the last move made by
+	 * makeMove(), restoring the Position before it was made.  Lets a
+	 * search work on a single Position without copying it at each node.
+	 * 
+	 * @param m		Move to be taken back
+	 */
+	public void unmakeMove(Move m);
+
+	/**
+	 * Encode a Move as a small integer for packed transposition
+	 * table entries.
+	 * 
+	 * @param m		Move to encode, or null
+	 * @return		code in range 1-TranspositionTable.MAX_MOVE_CODE,
+	 * 				or 0 if m is null
+	 */
+	public int encodeMove(Move m);
+
+	/**
+	 * @param code	Move code returned by encodeMove()
+	 * @return		decoded Move, or null if code is 0
+	 */
+	public Move decodeMove(int code);
+
 	/**
 	 * Evaluate a position.
 	 * 
@@ -100,6 +125,55 @@ public interface Position {
 	 */
 	public String toString();
 	
+	/**
+	 * 64-bit key identifying this Position, maintained incrementally
+	 * by makeMove().  Equal Positions have equal keys; transposition
+	 * table lookups compare keys instead of calling equals().
+	 * 
+	 * @return	key for this Position
+	 */
+	public long key();
+
+	/**
+	 * Describes how key() is computed, so that keys saved to a file
+	 * are only restored for Positions with the same key() function.
+	 * 
+	 * @return	name of the key() encoding
+	 */
+	public String keySchema();
+
+	/**
+	 * Transposition table lookups use the canonical image of a
+	 * Position: the one with the smallest key among the Positions
+	 * equivalent to it by a symmetry of the board.  Best moves are
+	 * stored transformed to the canonical image and transformed back
+	 * when retrieved.
+	 * 
+	 * @return	index of symmetry transformation mapping this Position
+	 * 			to its canonical image, 0 for the identity
+	 */
+	public int symmetry();
+
+	/**
+	 * @param symmetry	index of symmetry transformation
+	 * @return			key() of this Position after transformation
+	 */
+	public long key(int symmetry);
+
+	/**
+	 * @param code		encodeMove() of a move in this Position
+	 * @param symmetry	index of symmetry transformation
+	 * @return			code of corresponding move in transformed Position
+	 */
+	public int transformMove(int code, int symmetry);
+
+	/**
+	 * @param code		encodeMove() of a move in transformed Position
+	 * @param symmetry	index of symmetry transformation
+	 * @return			code of corresponding move in this Position
+	 */
+	public int untransformMove(int code, int symmetry);
+
 	/**
 	 * @return	hashCode for this Position
 	 */
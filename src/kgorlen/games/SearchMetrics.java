@@ -0,0 +1,165 @@
+package kgorlen.games;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Statistics of a TreeSearch exported as a JMX MBean, so that tools
+ * such as jconsole or a JMX scraper can read them from a running JVM
+ * during and after a search.  Attributes are read from the search on
+ * demand; counters of a running search are updated without
+ * synchronization, so they may lag slightly, and parallel searches
+ * add the counts of their helper threads when done.
+ *
+ * Registered with the platform MBean server as:
+ *
+ * 		kgorlen.games:type=SearchMetrics,name=<name>
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class SearchMetrics implements SearchMetricsMBean {
+	private final static Logger LOGGER = Log.LOGGER;
+	private static final String CLASS_NAME = SearchMetrics.class.getName();
+
+	public static final String DOMAIN = "kgorlen.games";
+
+	private final TreeSearch search;
+	private final ObjectName objectName;
+
+	/**
+	 * @param search	search whose statistics are exported
+	 * @param name		value of the name key of the ObjectName
+	 * @throws JMException	if name is not a valid ObjectName value
+	 */
+	private SearchMetrics(TreeSearch search, String name) throws JMException {
+		this.search = search;
+		objectName = new ObjectName(DOMAIN + ":type=SearchMetrics,name=" + name);
+	}
+
+	/**
+	 * Register the statistics of a search with the platform MBean
+	 * server, replacing any registered with the same name.
+	 *
+	 * @param search	search whose statistics are exported
+	 * @param name		name distinguishing the search within the JVM
+	 * @return			registered MBean
+	 */
+	public static SearchMetrics register(TreeSearch search, String name) {
+		try {
+			SearchMetrics metrics = new SearchMetrics(search, name);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(metrics.objectName)) server.unregisterMBean(metrics.objectName);
+			server.registerMBean(metrics, metrics.objectName);
+			LOGGER.config(() -> String.format("%s.register: %s%n", CLASS_NAME, metrics.objectName));
+			return metrics;
+		} catch (JMException e) {
+			throw new RuntimeException("Search metrics not registered: " + name, e);
+		}
+	}
+
+	/**
+	 * Register the statistics of a search named by its class
+	 *
+	 * @param search	search whose statistics are exported
+	 * @return			registered MBean
+	 */
+	public static SearchMetrics register(TreeSearch search) {
+		return register(search, search.getClass().getSimpleName());
+	}
+
+	/**
+	 * Remove this MBean from the platform MBean server
+	 */
+	public void unregister() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			throw new RuntimeException("Search metrics not unregistered: " + objectName, e);
+		}
+	}
+
+	/**
+	 * @return	name of this MBean
+	 */
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public String getSearchClass() {
+		return search.getClass().getName();
+	}
+
+	@Override
+	public boolean isSearching() {
+		return search.isSearching();
+	}
+
+	@Override
+	public long getPositionsSearched() {
+		return search.getPositionsSearched();
+	}
+
+	@Override
+	public double getElapsedSeconds() {
+		return search.searchTime()/1E9;
+	}
+
+	@Override
+	public long getPositionsPerSecond() {
+		final long nanos = search.searchTime();
+		return nanos > 0 ? (long) (search.getPositionsSearched()*1E9/nanos) : 0;
+	}
+
+	@Override
+	public int getTTSize() {
+		return search.getTTSize();
+	}
+
+	@Override
+	public long getTTHits() {
+		return search.getTTHits();
+	}
+
+	@Override
+	public double getTTHitRate() {
+		final long positions = search.getPositionsSearched();
+		return positions > 0 ? (double) search.getTTHits() / positions : 0;
+	}
+
+	@Override
+	public long getAlphaCutoffs() {
+		return search.getAlphaCutoffs();
+	}
+
+	@Override
+	public long getBetaCutoffs() {
+		return search.getBetaCutoffs();
+	}
+
+	@Override
+	public double getFirstMoveCutoffRate() {
+		return search.getFirstMoveCutoffRate();
+	}
+
+	@Override
+	public long getPlayouts() {
+		return search.getPlayouts();
+	}
+
+	@Override
+	public int getMaxDepth() {
+		return search.getMaxDepth();
+	}
+
+	@Override
+	public long getProvenNodes() {
+		return search.getProvenNodes();
+	}
+}
@@ -0,0 +1,81 @@
+package kgorlen.games;
+
+/**
+ * JMX management interface of SearchMetrics.  Attributes not kept by
+ * a search, such as cutoffs of an MCTS search, read as 0.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public interface SearchMetricsMBean {
+	/**
+	 * @return	class name of the search
+	 */
+	String getSearchClass();
+
+	/**
+	 * @return	true while a search is running
+	 */
+	boolean isSearching();
+
+	/**
+	 * @return	positions searched by current or last search
+	 */
+	long getPositionsSearched();
+
+	/**
+	 * @return	seconds since current search started, or duration
+	 * 			of last search
+	 */
+	double getElapsedSeconds();
+
+	/**
+	 * @return	positions searched per second
+	 */
+	long getPositionsPerSecond();
+
+	/**
+	 * @return	transposition table entries
+	 */
+	int getTTSize();
+
+	/**
+	 * @return	transposition table hits
+	 */
+	long getTTHits();
+
+	/**
+	 * @return	transposition table hits per position searched
+	 */
+	double getTTHitRate();
+
+	/**
+	 * @return	alpha cutoffs of an alpha-beta search
+	 */
+	long getAlphaCutoffs();
+
+	/**
+	 * @return	beta cutoffs of an alpha-beta search
+	 */
+	long getBetaCutoffs();
+
+	/**
+	 * @return	fraction of cutoffs by first move searched
+	 */
+	double getFirstMoveCutoffRate();
+
+	/**
+	 * @return	playouts of an MCTS search
+	 */
+	long getPlayouts();
+
+	/**
+	 * @return	maximum tree depth of an MCTS search
+	 */
+	int getMaxDepth();
+
+	/**
+	 * @return	tree nodes proven win or loss by an MCTS search
+	 */
+	long getProvenNodes();
+}
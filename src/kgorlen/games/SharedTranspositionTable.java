@@ -0,0 +1,134 @@
+package kgorlen.games;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transposition table shared by concurrent searches without locking.
+ *
+ * Each slot holds key ^ entry in place of the key.  A store writes
+ * the two longs separately, so a probe racing with a store may read
+ * the new key word with the old entry word (or vice versa); the XOR
+ * then fails to reproduce the key and the slot is treated as a miss.
+ * A torn slot almost never XORs to a key belonging to its own bucket,
+ * which is how probes distinguish it from an ordinary miss and count
+ * it as a reject.  In a table of one bucket every key belongs to it,
+ * so torn slots are misses that are not counted as rejects.
+ *
+ * The number of occupied slots is counted by store() rather than
+ * found by scanning the table, so size() is cheap enough to poll
+ * during a search; concurrent stores into the same empty slot may
+ * count it twice.
+ *
+ * References:
+ * 	https://chessprogramming.wikispaces.com/Shared+Hash+Table
+ * 	http://www.craftychess.com/hyatt/hashing.html
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class SharedTranspositionTable extends TranspositionTable {
+	private final LongAdder rejects = new LongAdder();	// torn slots seen by probe()
+	private final LongAdder occupied = new LongAdder();	// slots filled by store()
+
+	/**
+	 * @param sizeMB	approximate table size in megabytes
+	 */
+	public SharedTranspositionTable(int sizeMB) {
+		super((long) sizeMB << 20);
+	}
+
+	/**
+	 * @param i		slot index
+	 * @param key	Position.key() of Position to find
+	 * @return		packed entry in slot i for specified key, or 0 if none
+	 */
+	private long probeSlot(int i, long key) {
+		long entry = entries[i];
+		long check = keys[i];
+		if (entry == 0) return 0;
+		long slotKey = check ^ entry;
+		if (slotKey == key) return entry;
+		if (bucket(slotKey) != (i & ~1)) rejects.increment();	// torn by a concurrent store
+		return 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.TranspositionTable#probe(long)
+	 */
+	@Override
+	public long probe(long key) {
+		int i = bucket(key);
+		long entry = probeSlot(i, key);
+		return entry != 0 ? entry : probeSlot(i+1, key);
+	}
+
+	/**
+	 * Replacement follows TranspositionTable.store(); concurrent stores
+	 * to the same bucket may overwrite each other, which only loses an
+	 * entry.
+	 *
+	 * @param key	Position.key() of Position to save
+	 * @param entry	packed entry for specified key
+	 */
+	@Override
+	public void store(long key, long entry) {
+		assert entry != 0 : "Empty entry";
+		int i = bucket(key);
+		long e0 = entries[i];
+		long k0 = keys[i] ^ e0;
+		long e1 = entries[i+1];
+		long k1 = keys[i+1] ^ e1;
+		if (e0 == 0 || k0 == key) {
+			write(i, key, entry);
+			if (e0 == 0) occupied.increment();
+		} else if (e1 != 0 && k1 == key) {
+			write(i+1, key, entry);
+		} else if (getDepth(entry) >= getDepth(e0)) {
+			write(i+1, k0, e0);			// demote to always-replace slot
+			write(i, key, entry);
+			if (e1 == 0) occupied.increment();
+		} else {
+			write(i+1, key, entry);
+			if (e1 == 0) occupied.increment();
+		}
+	}
+
+	private void write(int i, long key, long entry) {
+		keys[i] = key ^ entry;
+		entries[i] = entry;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.TranspositionTable#slotKey(int)
+	 */
+	@Override
+	protected long slotKey(int i) {
+		return keys[i] ^ entries[i];
+	}
+
+	/**
+	 * @return	number of occupied slots, counted without locking
+	 */
+	@Override
+	public int size() {
+		return (int) Math.min(occupied.sum(), capacity());
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.TranspositionTable#clear()
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		rejects.reset();
+		occupied.reset();
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.TranspositionTable#getRejects()
+	 */
+	@Override
+	public long getRejects() {
+		return rejects.sum();
+	}
+}
@@ -0,0 +1,87 @@
+package kgorlen.games;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Header of a transposition table snapshot file, and memory mapping
+ * of the file to restore it.  Layout, big-endian:
+ * 
+ * 		int		MAGIC
+ * 		int		VERSION
+ * 		UTF		format: kind of table and record layout
+ * 		UTF		key schema: Position.keySchema() of the keys
+ * 		...		records, layout given by format
+ * 
+ * UTF strings are written by DataOutputStream.writeUTF().  A file is
+ * restored only into a table of the same format, for Positions with
+ * the same key schema, since keys of another game or another key()
+ * implementation would silently match the wrong positions.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class TableFile {
+	public static final int MAGIC = 0x4b475454;		// "KGTT"
+	public static final int VERSION = 1;
+
+	/**
+	 * @param out		stream to write
+	 * @param format	kind of table and record layout
+	 * @param schema	Position.keySchema() of keys in table
+	 * @throws IOException	if the header cannot be written
+	 */
+	public static void writeHeader(DataOutputStream out, String format, String schema) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(format);
+		out.writeUTF(schema);
+	}
+
+	/**
+	 * @param buffer	mapped file positioned at a UTF string
+	 * @return			string read
+	 */
+	private static String readUTF(MappedByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xffff];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Map a snapshot file and check its header
+	 * 
+	 * @param fileName	file written after writeHeader()
+	 * @param format	expected kind of table and record layout
+	 * @param schema	expected Position.keySchema()
+	 * @return			read-only buffer positioned at first record
+	 * @throws IOException	if the file cannot be read or does not match
+	 */
+	public static MappedByteBuffer map(String fileName, String format, String schema) throws IOException {
+		MappedByteBuffer buffer;
+		try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+				FileChannel channel = file.getChannel()) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			if (buffer.getInt() != MAGIC)
+				throw new IOException(fileName + ": not a transposition table file");
+			final int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException(String.format("%s: version %d, expected %d", fileName, version, VERSION));
+			final String fileFormat = readUTF(buffer);
+			if (!fileFormat.equals(format))
+				throw new IOException(String.format("%s: format \"%s\", expected \"%s\"", fileName, fileFormat, format));
+			final String fileSchema = readUTF(buffer);
+			if (!fileSchema.equals(schema))
+				throw new IOException(String.format("%s: key schema \"%s\", expected \"%s\"", fileName, fileSchema, schema));
+		} catch (RuntimeException e) {		// BufferUnderflowException
+			throw new IOException(fileName + ": truncated header", e);
+		}
+		return buffer;
+	}
+}
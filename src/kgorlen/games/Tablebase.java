@@ -0,0 +1,285 @@
+package kgorlen.games;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.logging.Logger;
+
+/**
+ * Perfect-play table of every GamePosition reachable from a root, for
+ * games with state spaces small enough to index densely.  Subclasses
+ * map Positions to and from indices in the range 0 to size()-1 with
+ * rank() and unrank().  If moveGenerator() skips moves equivalent by
+ * symmetry, rank() must give symmetric Positions the same index.
+ *
+ * build() enumerates the reachable Positions ply by ply, then solves
+ * them by retrograde analysis from the last ply back to the root.
+ * Every move adds a piece, so the children of a Position are all in
+ * the next ply and have been solved before it.  Each entry packs the
+ * result for the side to move (WIN, LOSS or DRAW) and the number of
+ * plies to the end of the game with best play: a winner takes the
+ * fastest win, a loser the slowest loss, as scoreWin() prefers.
+ *
+ * Entries take 2 + log2(maxDistance+1) bits, packed into longs
+ * without straddling a word.
+ *
+ * References:
+ * 	https://chessprogramming.wikispaces.com/Retrograde+Analysis
+ * 	https://chessprogramming.wikispaces.com/Endgame+Tablebases
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public abstract class Tablebase {
+	private final static Logger LOGGER = Log.LOGGER;
+	private static final String CLASS_NAME = Tablebase.class.getName();
+
+	public static final int UNKNOWN = 0;	// not reachable from root
+	public static final int WIN = 1;		// for side to move
+	public static final int LOSS = 2;
+	public static final int DRAW = 3;
+
+	private final long size;				// number of indices
+	private final int entryBits;			// bits per entry
+	private final int entriesPerWord;
+	private final long entryMask;
+	private final long[] entries;
+	private long positions = 0;				// number of solved entries
+	private long elapsedTime = 0;			// nanoseconds to build
+
+	/**
+	 * @param size			number of indices returned by rank()
+	 * @param maxDistance	maximum plies to end of game
+	 */
+	protected Tablebase(long size, int maxDistance) {
+		assert size > 0 && size <= Integer.MAX_VALUE : "Tablebase size out of range: " + size;
+		assert maxDistance > 0 : "Invalid maximum distance: " + maxDistance;
+		this.size = size;
+		entryBits = 2 + 32 - Integer.numberOfLeadingZeros(maxDistance);
+		entriesPerWord = 64 / entryBits;
+		entryMask = (1L << entryBits) - 1;
+		entries = new long[(int) ((size + entriesPerWord - 1) / entriesPerWord)];
+	}
+
+	/**
+	 * @param p	Position reachable from the root
+	 * @return	dense index of p, 0 to size()-1
+	 */
+	public abstract long rank(GamePosition p);
+
+	/**
+	 * @param index	value returned by rank()
+	 * @return		new Position with specified index
+	 */
+	public abstract GamePosition unrank(long index);
+
+	/**
+	 * @param index	dense index
+	 * @return		packed entry: result | distance<<2
+	 */
+	private int entry(long index) {
+		final long word = entries[(int) (index / entriesPerWord)];
+		return (int) (word >>> (index % entriesPerWord * entryBits) & entryMask);
+	}
+
+	private void setEntry(long index, int entry) {
+		final int i = (int) (index / entriesPerWord);
+		final int shift = (int) (index % entriesPerWord * entryBits);
+		entries[i] = entries[i] & ~(entryMask << shift) | (long) entry << shift;
+	}
+
+	private static int result(int entry) {
+		return entry & 3;
+	}
+
+	private static int distance(int entry) {
+		return entry >>> 2;
+	}
+
+	/**
+	 * @param e	entry of a child
+	 * @return	entry of its parent through the move to the child
+	 */
+	private static int parentEntry(int e) {
+		final int r = result(e);
+		return (r == WIN ? LOSS : r == LOSS ? WIN : DRAW) | (distance(e) + 1) << 2;
+	}
+
+	/**
+	 * @param e	packed entry
+	 * @return	preference of side to move: higher is better
+	 */
+	private static int preference(int e) {
+		switch (result(e)) {
+			case WIN:	return Integer.MAX_VALUE - distance(e);	// faster win
+			case DRAW:	return 0;
+			default:	return Integer.MIN_VALUE + distance(e);	// slower loss
+		}
+	}
+
+	/**
+	 * @param p	Position to test
+	 * @return	entry of a game over Position, or UNKNOWN
+	 */
+	private static int terminalEntry(GamePosition p) {
+		if (p.isWin()) return LOSS;		// last move won
+		if (p.isDraw()) return DRAW;
+		return UNKNOWN;
+	}
+
+	/**
+	 * @param ranks	array to grow
+	 * @param n		number of ranks in array
+	 * @return		array with room for another rank
+	 */
+	private static long[] grow(long[] ranks, int n) {
+		return n < ranks.length ? ranks : Arrays.copyOf(ranks, 2*ranks.length);
+	}
+
+	/**
+	 * Solve every Position reachable from root
+	 *
+	 * @param root	starting Position, usually the initial Position
+	 */
+	public void build(GamePosition root) {
+		elapsedTime = System.nanoTime();
+		Arrays.fill(entries, 0);
+		positions = 0;
+
+		// Enumerate reachable Positions ply by ply
+		BitSet seen = new BitSet((int) size);
+		long[][] layers = new long[1][];
+		int[] layerSize = new int[1];
+		long rootRank = rank(root);
+		seen.set((int) rootRank);
+		layers[0] = new long[] { rootRank };
+		layerSize[0] = 1;
+		for (int ply = 0; layerSize[ply] > 0; ply++) {
+			long[] next = new long[Math.max(16, layerSize[ply])];
+			int n = 0;
+			for (int j = 0; j < layerSize[ply]; j++) {
+				GamePosition p = unrank(layers[ply][j]);
+				if (terminalEntry(p) != UNKNOWN) continue;
+				MoveGenerator gen = p.moveGenerator();
+				while (gen.hasNext()) {
+					Move move = gen.next();
+					p.makeMove(move);
+					final long child = rank(p);
+					p.unmakeMove(move);
+					if (seen.get((int) child)) continue;
+					seen.set((int) child);
+					next = grow(next, n);
+					next[n++] = child;
+				}
+			}
+			layers = Arrays.copyOf(layers, ply+2);
+			layerSize = Arrays.copyOf(layerSize, ply+2);
+			layers[ply+1] = next;
+			layerSize[ply+1] = n;
+		}
+
+		// Retrograde analysis from the last ply back to the root
+		for (int ply = layers.length - 1; ply >= 0; ply--) {
+			for (int j = 0; j < layerSize[ply]; j++) {
+				final long index = layers[ply][j];
+				setEntry(index, solve(unrank(index)));
+				positions++;
+			}
+			layers[ply] = null;
+		}
+
+		elapsedTime = System.nanoTime() - elapsedTime;
+		LOGGER.config(() -> String.format("%s.build: %d positions of %d indices, %d bits/entry, %.3f sec%n",
+				CLASS_NAME, positions, size, entryBits, elapsedTime/1e9));
+	}
+
+	/**
+	 * @param p	Position whose children are solved
+	 * @return	packed entry for p
+	 */
+	private int solve(GamePosition p) {
+		final int terminal = terminalEntry(p);
+		if (terminal != UNKNOWN) return terminal;
+		int best = UNKNOWN;
+		MoveGenerator gen = p.moveGenerator();
+		while (gen.hasNext()) {
+			Move move = gen.next();
+			p.makeMove(move);
+			final int e = parentEntry(entry(rank(p)));
+			p.unmakeMove(move);
+			if (best == UNKNOWN || preference(e) > preference(best)) best = e;
+		}
+		assert best != UNKNOWN : "No moves from non-terminal position:\n" + p;
+		return best;
+	}
+
+	/**
+	 * @param p	Position reachable from the root
+	 * @return	WIN, LOSS or DRAW for side to move, or UNKNOWN
+	 */
+	public int getResult(GamePosition p) {
+		return result(entry(rank(p)));
+	}
+
+	/**
+	 * @param p	Position reachable from the root
+	 * @return	plies to end of game with best play
+	 */
+	public int getDistance(GamePosition p) {
+		return distance(entry(rank(p)));
+	}
+
+	/**
+	 * Principal variation to the end of the game, scored like a full
+	 * NegaMax search: from the point of view of the side to move.
+	 *
+	 * @param start	Position reachable from the root
+	 * @return		principal Variation, or null if start not in table
+	 */
+	public Variation probe(GamePosition start) {
+		int e = entry(rank(start));
+		if (result(e) == UNKNOWN) return null;
+		Variation pvar = start.newVariation();
+		GamePosition p = start.copy();
+		while (terminalEntry(p) == UNKNOWN) {
+			Move best = null;
+			MoveGenerator gen = p.moveGenerator();
+			while (gen.hasNext()) {
+				Move move = gen.next();
+				p.makeMove(move);
+				final int child = parentEntry(entry(rank(p)));
+				p.unmakeMove(move);
+				if (child == e) {
+					best = move;
+					break;
+				}
+			}
+			assert best != null : "No move achieves table entry in position:\n" + p;
+			pvar.addMove(best);
+			p.makeMove(best);
+			e = entry(rank(p));
+		}
+		pvar.setScore(start.scoreSign() * (p.isWin() ? p.scoreWin() : p.scoreDraw()));
+		return pvar;
+	}
+
+	/**
+	 * @return	number of indices
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return	number of Positions solved by build()
+	 */
+	public long positions() {
+		return positions;
+	}
+
+	/**
+	 * @return	bytes of packed entries
+	 */
+	public long tableBytes() {
+		return 8L * entries.length;
+	}
+}
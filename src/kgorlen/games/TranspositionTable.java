@@ -0,0 +1,261 @@
+package kgorlen.games;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table.  Entries are packed into a long[]
+ * array and grouped into two-entry buckets:
+ *
+ * 	- slot 0 is depth-preferred: replaced only by an entry searched at
+ * 	  least as deep; the entry it held is demoted to slot 1
+ * 	- slot 1 is always-replace
+ *
+ * Entries are identified by Position.key(); an entry for a key already
+ * in the bucket is always overwritten.
+ *
+ * Packed entry layout (bit 63 through bit 0):
+ *
+ * 		score:32 | depth:16 | scoreType:2 | move:14
+ *
+ * A packed entry of 0 marks an empty slot, since a stored entry never
+ * has ScoreType.INVALID.  Moves are packed by Position.encodeMove() and
+ * unpacked by Position.decodeMove().
+ *
+ * References:
+ * 	https://chessprogramming.wikispaces.com/Transposition+Table
+ * 	http://web.archive.org/web/20070809015843/http://www.seanet.com/~brucemo/topics/hashing.htm
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class TranspositionTable {
+	public static final int BYTES_PER_ENTRY = 16;	// key + packed entry
+	public static final int MAX_MOVE_CODE = 0x3fff;
+	public static final String FILE_FORMAT = "TranspositionTable: long count, {long key, long entry}[count]";
+
+	private static final int MOVE_BITS = 14;
+	private static final int TYPE_SHIFT = MOVE_BITS;
+	private static final int DEPTH_SHIFT = TYPE_SHIFT + 2;
+	private static final int SCORE_SHIFT = DEPTH_SHIFT + 16;
+
+	protected final long[] keys;	// Position.key() of each entry
+	protected final long[] entries;	// packed entries
+	private final int bucketShift;	// 64 - log2(number of buckets)
+	private int size;				// number of occupied slots
+
+	/**
+	 * @param sizeMB	approximate table size in megabytes
+	 */
+	public TranspositionTable(int sizeMB) {
+		this((long) sizeMB << 20);
+	}
+
+	/**
+	 * @param bytes	approximate table size in bytes
+	 */
+	protected TranspositionTable(long bytes) {
+		long buckets = Long.highestOneBit(Math.max(bytes / (2*BYTES_PER_ENTRY), 1));
+		if (buckets > 1<<29) buckets = 1<<29;
+		bucketShift = 64 - Long.numberOfTrailingZeros(buckets);
+		keys = new long[2 * (int) buckets];
+		entries = new long[2 * (int) buckets];
+	}
+
+	/**
+	 * @param capacity	minimum number of entries
+	 * @return			TranspositionTable holding at least capacity entries
+	 */
+	public static TranspositionTable withCapacity(int capacity) {
+		long entries = Math.max(Long.highestOneBit(Math.max(capacity - 1, 1)) << 1, 2);
+		return new TranspositionTable(entries * BYTES_PER_ENTRY);
+	}
+
+	/**
+	 * @param score		position score
+	 * @param depth		search depth of score
+	 * @param scoreType	type of score (EXACT, UPPERBOUND, LOWERBOUND)
+	 * @param moveCode	best move, encoded by Position.encodeMove()
+	 * @return			packed entry
+	 */
+	public static long pack(int score, int depth, ScoreType scoreType, int moveCode) {
+		assert scoreType != ScoreType.INVALID : "Invalid score type";
+		assert depth >= 0 && depth <= 0xffff : "Depth out of range: " + depth;
+		assert moveCode >= 0 && moveCode <= MAX_MOVE_CODE : "Move code out of range: " + moveCode;
+		return (long) score << SCORE_SHIFT
+				| (long) depth << DEPTH_SHIFT
+				| (long) scoreType.ordinal() << TYPE_SHIFT
+				| moveCode;
+	}
+
+	public static int getScore(long entry) {
+		return (int) (entry >> SCORE_SHIFT);
+	}
+
+	public static int getDepth(long entry) {
+		return (int) (entry >>> DEPTH_SHIFT) & 0xffff;
+	}
+
+	public static ScoreType getScoreType(long entry) {
+		return ScoreType.values[(int) (entry >>> TYPE_SHIFT) & 0x3];
+	}
+
+	public static int getMoveCode(long entry) {
+		return (int) entry & MAX_MOVE_CODE;
+	}
+
+	/**
+	 * @param entry		packed entry
+	 * @param moveCode	best move, encoded by Position.encodeMove()
+	 * @return			packed entry with specified best move
+	 */
+	public static long setMoveCode(long entry, int moveCode) {
+		assert moveCode >= 0 && moveCode <= MAX_MOVE_CODE : "Move code out of range: " + moveCode;
+		return entry & ~MAX_MOVE_CODE | moveCode;
+	}
+
+	/**
+	 * @param key	Position.key()
+	 * @return		index of first slot of bucket for specified key
+	 */
+	protected final int bucket(long key) {
+		if (bucketShift == 64) return 0;		// single bucket
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> bucketShift) << 1;	// Fibonacci hashing
+	}
+
+	/**
+	 * @param key	Position.key() of Position to find
+	 * @return		packed entry for specified key, or 0 if none
+	 */
+	public long probe(long key) {
+		int i = bucket(key);
+		if (keys[i] == key && entries[i] != 0) return entries[i];
+		if (keys[i+1] == key && entries[i+1] != 0) return entries[i+1];
+		return 0;
+	}
+
+	/**
+	 * @param key	Position.key() of Position to save
+	 * @param entry	packed entry for specified key
+	 */
+	public void store(long key, long entry) {
+		assert entry != 0 : "Empty entry";
+		int i = bucket(key);
+		if (keys[i] == key && entries[i] != 0) {
+			entries[i] = entry;
+			return;
+		}
+		if (keys[i+1] == key && entries[i+1] != 0) {
+			entries[i+1] = entry;
+			return;
+		}
+		if (entries[i] == 0) {
+			size++;
+			keys[i] = key;
+			entries[i] = entry;
+		} else if (getDepth(entry) >= getDepth(entries[i])) {
+			if (entries[i+1] == 0) size++;
+			keys[i+1] = keys[i];				// demote to always-replace slot
+			entries[i+1] = entries[i];
+			keys[i] = key;
+			entries[i] = entry;
+		} else {
+			if (entries[i+1] == 0) size++;
+			keys[i+1] = key;
+			entries[i+1] = entry;
+		}
+	}
+
+	/**
+	 * @param i	index of occupied slot
+	 * @return	Position.key() of entry in slot
+	 */
+	protected long slotKey(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Write all entries to a snapshot file
+	 * 
+	 * @param fileName	file to write
+	 * @param schema	Position.keySchema() of keys in table
+	 * @return			number of entries written
+	 * @throws IOException	if the file cannot be written
+	 * 
+	 * @see TableFile
+	 */
+	public int save(String fileName, String schema) throws IOException {
+		int count = 0;
+		for (long entry : entries) {
+			if (entry != 0) count++;
+		}
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(fileName)))) {
+			TableFile.writeHeader(out, FILE_FORMAT, schema);
+			out.writeLong(count);
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i] == 0) continue;
+				out.writeLong(slotKey(i));
+				out.writeLong(entries[i]);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Store all entries of a snapshot file, which may have been written
+	 * by a table of another size.  The file is memory mapped, not read
+	 * onto the heap.
+	 * 
+	 * @param fileName	file written by save()
+	 * @param schema	Position.keySchema() of keys in table
+	 * @return			number of entries read
+	 * @throws IOException	if the file cannot be read or does not match
+	 */
+	public int load(String fileName, String schema) throws IOException {
+		MappedByteBuffer buffer = TableFile.map(fileName, FILE_FORMAT, schema);
+		final long count = buffer.remaining() >= 8 ? buffer.getLong() : -1;
+		if (count < 0 || buffer.remaining() != 16*count)
+			throw new IOException(fileName + ": truncated transposition table");
+		for (long i = 0; i < count; i++) {
+			final long key = buffer.getLong();
+			store(key, buffer.getLong());
+		}
+		return (int) count;
+	}
+
+	/**
+	 * Remove all entries
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(entries, 0);
+		size = 0;
+	}
+
+	/**
+	 * @return	number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return	number of probes rejected because a concurrent store
+	 * 			left a partially written entry
+	 */
+	public long getRejects() {
+		return 0;
+	}
+
+	/**
+	 * @return	maximum number of entries
+	 */
+	public int capacity() {
+		return entries.length;
+	}
+}
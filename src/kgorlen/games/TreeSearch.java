@@ -1,6 +1,6 @@
 package kgorlen.games;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.logging.Logger;
 
 import kgorlen.games.TTEntry;
@@ -16,20 +16,34 @@ public abstract class TreeSearch {
 	private static final String CLASS_NAME = TreeSearch.class.getName();
 
 	public static final int SCORE_INFINITY = 999999999;
+	public static final int DEFAULT_TT_SIZE_MB = 4;
 	
 	protected long positionsSearched = 0;
 	protected long ttHits = 0;
 	protected long elapsedTime = 0;
-	private long startTime = System.nanoTime();
+	private volatile long startTime = System.nanoTime();
+	private volatile boolean searching = false;	// between startTiming() and stopTiming()
 	private Position root;
-	private HashMap<Position, TTEntry> transTable;
+	private TranspositionTable transTable;
+	private boolean keepTable = false;	// setRoot() keeps entries
 	
+	/**
+	 * @param ttCapacity	minimum number of transposition table entries
+	 */
 	protected TreeSearch(int ttCapacity) {
-		transTable =  new HashMap<Position, TTEntry>(ttCapacity);
+		transTable = TranspositionTable.withCapacity(ttCapacity);
 	}
 	
 	protected TreeSearch() {
-		transTable =  new HashMap<Position, TTEntry>(4096);
+		transTable = new TranspositionTable(DEFAULT_TT_SIZE_MB);
+	}
+	
+	/**
+	 * @param transTable	transposition table, which may be shared
+	 * 						with other TreeSearch instances
+	 */
+	protected TreeSearch(TranspositionTable transTable) {
+		this.transTable = transTable;
 	}
 	
 	/**
@@ -40,13 +54,15 @@ public abstract class TreeSearch {
 	public abstract Variation search(Position root, int limit);
 	
 	/**
-	 * Reset the positions searched and transposition table
+	 * Reset the positions searched and, unless kept, the
+	 * transposition table
 	 */
 	public void setRoot(Position root) {
 		this.root = root;
-		transTable.clear();
+		if (!keepTable) transTable.clear();
 		positionsSearched = 0;
 		ttHits = 0;
+		searching = false;
 	}
 	
 	/**
@@ -54,7 +70,65 @@ public abstract class TreeSearch {
 	 * @param	transposition table entry for specified Position
 	 */
 	public void putTTEntry(Position p, TTEntry ttEntry) {
-		transTable.put(p, ttEntry);
+		storeTTEntry(p, ttEntry.getDepth(), ttEntry.getScoreType(),
+				ttEntry.getScore(), ttEntry.getMove());
+	}
+	
+	/**
+	 * Save a transposition table entry without creating a TTEntry.
+	 * The entry is saved for the canonical image of p, with bestMove
+	 * transformed to it.
+	 * 
+	 * @param p			Position to save
+	 * @param depth		search depth of score
+	 * @param scoreType	type of score (EXACT, UPPERBOUND, LOWERBOUND)
+	 * @param score		position score
+	 * @param bestMove	best Move
+	 */
+	protected void storeTTEntry(Position p, int depth, ScoreType scoreType, int score, Move bestMove) {
+		final int symmetry = p.symmetry();
+		int moveCode = p.encodeMove(bestMove);
+		if (symmetry != 0 && moveCode != 0) moveCode = p.transformMove(moveCode, symmetry);
+		transTable.store(p.key(symmetry), TranspositionTable.pack(score, depth, scoreType, moveCode));
+	}
+	
+	/**
+	 * Keep transposition table entries from one search to the next,
+	 * e.g. after restoring them with loadTable().  Entries are keyed
+	 * by Position, not by root, so they remain valid; kept bounds
+	 * from shallower searches are only used for move ordering.
+	 * 
+	 * @param keepTable	true to keep entries when setRoot() is called
+	 */
+	public void setKeepTable(boolean keepTable) {
+		this.keepTable = keepTable;
+	}
+	
+	/**
+	 * Save the transposition table to a snapshot file
+	 * 
+	 * @param fileName	file to write
+	 * @param p			any Position of the game searched
+	 * @return			number of entries saved
+	 * @throws IOException	if the file cannot be written
+	 */
+	public int saveTable(String fileName, Position p) throws IOException {
+		return transTable.save(fileName, p.keySchema());
+	}
+	
+	/**
+	 * Restore a transposition table snapshot file and keep its
+	 * entries across searches.
+	 * 
+	 * @param fileName	file written by saveTable()
+	 * @param p			any Position of the game searched
+	 * @return			number of entries restored
+	 * @throws IOException	if the file cannot be read or is for another game
+	 */
+	public int loadTable(String fileName, Position p) throws IOException {
+		int n = transTable.load(fileName, p.keySchema());
+		keepTable = true;
+		return n;
 	}
 	
 	public int getTTSize() {
@@ -62,13 +136,109 @@ public abstract class TreeSearch {
 	}
 	
 	/**
-	 * Override to handle position symmetries
-	 * 
+	 * @return	positions searched since setRoot(), which may lag
+	 * 			when read by another thread during a search
+	 */
+	public long getPositionsSearched() {
+		return positionsSearched;
+	}
+	
+	/**
+	 * @return	transposition table hits since setRoot()
+	 */
+	public long getTTHits() {
+		return ttHits;
+	}
+	
+	/**
+	 * @return	alpha cutoffs of an alpha-beta search, otherwise 0
+	 */
+	public long getAlphaCutoffs() {
+		return 0;
+	}
+	
+	/**
+	 * @return	beta cutoffs of an alpha-beta search, otherwise 0
+	 */
+	public long getBetaCutoffs() {
+		return 0;
+	}
+	
+	/**
+	 * @return	fraction of cutoffs by first move searched, 0 if none
+	 */
+	public double getFirstMoveCutoffRate() {
+		return 0;
+	}
+	
+	/**
+	 * @return	playouts of an MCTS search, otherwise 0
+	 */
+	public long getPlayouts() {
+		return 0;
+	}
+	
+	/**
+	 * @return	maximum tree depth of an MCTS search, otherwise 0
+	 */
+	public int getMaxDepth() {
+		return 0;
+	}
+	
+	/**
+	 * @return	tree nodes proven win or loss by an MCTS search,
+	 * 			otherwise 0
+	 */
+	public long getProvenNodes() {
+		return 0;
+	}
+	
+	/**
+	 * @return	transposition table used by this search
+	 */
+	public TranspositionTable getTranspositionTable() {
+		return transTable;
+	}
+	
+	/**
+	 * @return	statistics line for the transposition table
+	 */
+	protected String ttStatistics() {
+		return transTable instanceof SharedTranspositionTable ?
+				String.format("%d TT entries, %d TT hits, %d TT rejects",
+						getTTSize(), ttHits, transTable.getRejects()) :
+				String.format("%d TT entries, %d TT hits", getTTSize(), ttHits);
+	}
+	
+	/**
 	 * @param p	Position to find
 	 * @return	transposition table entry for specified Position, or null
 	 */
 	public TTEntry getTTEntry(Position p) {
-		return transTable.get(p);
+		long entry = probeTTEntry(p);
+		if (entry == 0) return null;
+		Move move = p.decodeMove(TranspositionTable.getMoveCode(entry));
+		return p instanceof GamePosition ?
+				((GamePosition) p).newTTentry(TranspositionTable.getDepth(entry),
+						TranspositionTable.getScoreType(entry), TranspositionTable.getScore(entry), move) :
+				p.newTTentry(TranspositionTable.getDepth(entry), TranspositionTable.getScore(entry), move);
+	}
+	
+	/**
+	 * Find a transposition table entry without creating a TTEntry.
+	 * Decode with TranspositionTable.getScore(), getDepth(), etc.
+	 * The entry of the canonical image of p is found, and its best
+	 * move transformed back to p.
+	 * 
+	 * @param p	Position to find
+	 * @return	packed transposition table entry for specified Position, or 0
+	 */
+	protected long probeTTEntry(Position p) {
+		final int symmetry = p.symmetry();
+		final long entry = transTable.probe(p.key(symmetry));
+		final int moveCode = TranspositionTable.getMoveCode(entry);
+		if (symmetry == 0 || moveCode == 0) return entry;
+		return TranspositionTable.setMoveCode(entry, p.untransformMove(moveCode, symmetry));
 	}
 	
 	/**
@@ -157,6 +327,40 @@ public abstract class TreeSearch {
 		startTime = currentTime;
 		return elapsedTime;
 	}
+	
+	/**
+	 * Start timing a search, after setRoot()
+	 */
+	protected void startTiming() {
+		elapsedTime();
+		searching = true;
+	}
+	
+	/**
+	 * Stop timing a search
+	 * 
+	 * @return	nanoseconds since startTiming()
+	 */
+	protected long stopTiming() {
+		final long nanos = elapsedTime();
+		searching = false;
+		return nanos;
+	}
+	
+	/**
+	 * @return	true from the start of a search until it is done
+	 */
+	public boolean isSearching() {
+		return searching;
+	}
+	
+	/**
+	 * @return	nanoseconds since the current search started, or
+	 * 			duration of the last search
+	 */
+	public long searchTime() {
+		return searching ? System.nanoTime() - startTime : elapsedTime;
+	}
 		
 	/**
 	 * Log search statistics	 * 
@@ -169,16 +373,15 @@ public abstract class TreeSearch {
 				"  %d positions searched in %fs (%,d positions/s)%n",
 				positionsSearched, elapsedTime/1E9, 1000000000*positionsSearched/elapsedTime));
 		LOGGER.info(() -> String.format(
-				"  %d TT entries, %d TT hits%n",
-				getTTSize(), ttHits ));		
+				"  %s%n", ttStatistics() ));		
 	}
 	
 	/**
 	 * Print search statistics
 	 */
 	public void printStatistics() {
-		System.out.format("%d positions searched in %fs (%,d positions/s)%n%d TT entries, %d TT hits%n",
+		System.out.format("%d positions searched in %fs (%,d positions/s)%n%s%n",
 							positionsSearched, elapsedTime/1E9, 1000000000*positionsSearched/elapsedTime,
-							transTable.size(), ttHits);
+							ttStatistics());
 	}
 }
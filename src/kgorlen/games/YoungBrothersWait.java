@@ -0,0 +1,215 @@
+package kgorlen.games;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Parallel NegaMax alpha-beta search using the Young Brothers Wait
+ * Concept: at each node the eldest (first) move is searched serially
+ * to establish a bound, then the remaining siblings are searched in
+ * parallel as fork/join tasks.  A sibling scoring >= beta cuts off the
+ * node, and the tasks still searching below it abandon their work.
+ *
+ * References:
+ * 	https://chessprogramming.wikispaces.com/Young+Brothers+Wait+Concept
+ * 	https://chessprogramming.wikispaces.com/Jamboree
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class YoungBrothersWait extends AlphaBetaTreeSearch {
+	private final static Logger LOGGER = Log.LOGGER;
+	private static final String CLASS_NAME = YoungBrothersWait.class.getName();
+
+	public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+	private final ForkJoinPool pool;		// Threads searching younger brothers
+	private final int splitDepth;			// Minimum depth at which to fork siblings
+	private final LongAdder positions = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder alphaCutoffs = new LongAdder();
+	private final LongAdder betaCutoffs = new LongAdder();
+	private final LongAdder firstMoveCutoffs = new LongAdder();
+
+	/**
+	 * @param threads		ForkJoinPool parallelism
+	 * @param ttSizeMB		shared transposition table size in megabytes
+	 * @param splitDepth	minimum remaining depth at which younger
+	 * 						brothers are searched in parallel
+	 */
+	public YoungBrothersWait(int threads, int ttSizeMB, int splitDepth) {
+		super(new SharedTranspositionTable(ttSizeMB), 2);
+		pool = new ForkJoinPool(threads);
+		this.splitDepth = splitDepth;
+	}
+
+	public YoungBrothersWait() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_TT_SIZE_MB, DEFAULT_SPLIT_DEPTH);
+	}
+
+	/**
+	 * Search of one node.  The task is abandoned when it or any
+	 * ancestor has been cut off.
+	 */
+	@SuppressWarnings("serial")
+	private class Node extends RecursiveTask<Integer> {
+		private final GamePosition parent;
+		private final int depth;
+		private final Node up;				// Node of parent position
+		private int alpha;
+		private int beta;
+		private volatile boolean cutoff;	// Set when a younger brother fails high
+
+		Node(GamePosition parent, int depth, int alpha, int beta, Node up) {
+			this.parent = parent;
+			this.depth = depth;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.up = up;
+		}
+
+		/**
+		 * @return	true if this Node or any ancestor has been cut off
+		 */
+		boolean isAbandoned() {
+			for (Node n = this; n != null; n = n.up) {
+				if (n.cutoff) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Search child position serially or in a forked task
+		 *
+		 * @param move	Move to child position
+		 * @return		Node searching child position
+		 */
+		Node child(Move move) {
+			positions.increment();
+			GamePosition child = parent.copy();
+			child.makeMove(move);
+			return new Node(child, depth-1, -beta, -alpha, this);
+		}
+
+		/**
+		 * @return	maximum (color = +1) or minimum (color = -1) score;
+		 * 			meaningless if isAbandoned()
+		 */
+		@Override
+		protected Integer compute() {
+			final int alphaOrig = alpha;
+			int color = parent.scoreSign();
+
+			final long ttEntry = probeTTEntry(parent);
+			if (ttEntry != 0 && TranspositionTable.getDepth(ttEntry) >= depth) {
+				hits.increment();
+				final int ttScore = TranspositionTable.getScore(ttEntry);
+				switch (TranspositionTable.getScoreType(ttEntry)) {
+				case INVALID:
+					throw new RuntimeException("Invalid score type");
+				case EXACT:
+					return ttScore;
+				case LOWERBOUND:
+					if (ttScore > alpha) alpha = ttScore;
+					break;
+				case UPPERBOUND:
+					if (ttScore < beta) beta = ttScore;
+					break;
+				}
+				if (alpha >= beta) return ttScore;
+			}
+
+			if (parent.isWin()) return color * parent.scoreWin();
+			if (parent.isDraw()) return color * parent.scoreDraw();
+			if (depth == 0) return color * parent.evaluate();
+
+			ArrayList<Move> moves = new ArrayList<Move>();
+			MoveGenerator gen = parent.moveGenerator(getKillers(parent.getPly()));
+			while (gen.hasNext()) moves.add(gen.next());
+			assert !moves.isEmpty() : "Unexpected terminal position";
+
+			// Eldest brother, and all moves near the leaves, searched serially
+			int bestScore = -TreeSearch.SCORE_INFINITY;
+			Move bestMove = null;
+			int i = 0;
+			do {
+				if (isAbandoned()) return bestScore;
+				Move move = moves.get(i++);
+				int score = -child(move).compute();
+				if (score > bestScore) {
+					bestScore = score;
+					bestMove = move;
+				}
+				if (score > alpha) alpha = score;
+			} while (alpha < beta && i < moves.size() && depth < splitDepth);
+			final boolean firstMoveCutoff = alpha >= beta && i == 1;
+
+			// Younger brothers searched in parallel
+			if (alpha < beta && i < moves.size()) {
+				ArrayList<Node> brothers = new ArrayList<Node>(moves.size() - i);
+				for (int j = i; j < moves.size(); j++) brothers.add(child(moves.get(j)));
+				for (int j = brothers.size()-1; j > 0; j--) brothers.get(j).fork();
+				for (int j = 0; j < brothers.size(); j++) {
+					Node brother = brothers.get(j);
+					int score = -(j == 0 ? brother.compute() : brother.join());
+					if (cutoff || isAbandoned()) continue;	// join remaining tasks
+					if (score > bestScore) {
+						bestScore = score;
+						bestMove = moves.get(i+j);
+					}
+					if (score > alpha) alpha = score;
+					if (alpha >= beta) cutoff = true;		// abandon younger brothers
+				}
+				if (isAbandoned() && !cutoff) return bestScore;
+			}
+
+			if (alpha >= beta) addKiller(parent.getPly(), bestMove);
+
+			ScoreType scoreType;
+			if (bestScore <= alphaOrig) {			// searched an All-Node
+				scoreType = ScoreType.UPPERBOUND;
+			} else if (bestScore >= beta) {			// searched a Cut-Node
+				scoreType = ScoreType.LOWERBOUND;
+				if (color > 0) betaCutoffs.increment();
+				else alphaCutoffs.increment();
+				if (firstMoveCutoff) firstMoveCutoffs.increment();
+			} else scoreType = ScoreType.EXACT;		// searched a PV-Node
+
+			if (up != null && up.isAbandoned()) return bestScore;
+			storeTTEntry(parent, depth, scoreType, bestScore, bestMove);
+			return bestScore;
+		}
+	}
+
+	/**
+	 * @param root		root GamePosition to be searched
+	 * @param maxDepth	maximum depth to search
+	 * @return			principal Variation found by search
+	 */
+	@Override
+	public Variation search(Position root, int maxDepth) {
+		LOGGER.config(() -> String.format("%s.search threads=%d, split depth=%d%n",
+				CLASS_NAME, pool.getParallelism(), splitDepth));
+		setRoot(root);
+		positions.reset();
+		hits.reset();
+		alphaCutoffs.reset();
+		betaCutoffs.reset();
+		firstMoveCutoffs.reset();
+		expandKillers(root.getPly() + maxDepth);
+		startTiming();
+		pool.invoke(new Node((GamePosition) root, maxDepth,
+				-TreeSearch.SCORE_INFINITY, +TreeSearch.SCORE_INFINITY, null));
+		stopTiming();
+		addStatistics(positions.sum(), hits.sum(), alphaCutoffs.sum(), betaCutoffs.sum(),
+				firstMoveCutoffs.sum());
+		setSearchThreads(pool.getParallelism());
+		logStatistics();
+		Variation pvar = getPrincipalVariation();
+		Variation.logPrincipalVariation(pvar, CLASS_NAME);
+		return pvar;
+	}
+}
@@ -1,5 +1,7 @@
 package kgorlen.games.connect4;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.logging.Level;
@@ -7,8 +9,9 @@ import java.util.logging.Logger;
 
 import kgorlen.games.Log;
 import kgorlen.games.Move;
-import kgorlen.games.TreeSearch;
+import kgorlen.games.SearchMetrics;
 import kgorlen.games.Variation;
+import kgorlen.games.mcts.MCTS;
 import kgorlen.games.mcts.MCTSClassic;
 import kgorlen.games.mcts.MCTSSolver;
 
@@ -20,6 +23,11 @@ import kgorlen.games.mcts.MCTSSolver;
  */
 public class Connect4 {
 	static int SEARCH_LIMIT = 1000;		// search limit (iterations)
+	static int SOLVER_LIMIT = 4000000;	// Connect4Solver limit (positions)
+	static int SOLVER_PLY = 4;			// Connect4Solver not tried at lower plies
+	static String BOOK_FILE = "connect4.book";	// Opening book written by Connect4BookGenerator
+	static String TableFile = null;		// Connect4Solver table snapshot, null for none
+	static Connect4Solver Solver;		// Perfect play near end of game
 	static Scanner Input = new Scanner(System.in);	// Command input stream
 	private static final Logger LOGGER = Log.LOGGER;
 
@@ -54,12 +62,12 @@ public class Connect4 {
 					continue;
 				case "Q":		// Quit
 				case "q":  
-					System.exit(0);
+					quit();
 				default:
 					Connect4Move move = p.newMove(Character.toLowerCase(cmd.charAt(0)));
 					if (p.isValidMove(move)) {
 						LOGGER.info(String.format("Opponent's move: %s%n", move.toString()));
-						p = (Connect4Position) p.getChild(move);
+						p = (Connect4Position) p.promoteChild(move);	// keep searched subtree
 						p.print();
 						return p;
 					} else {
@@ -89,17 +97,72 @@ public class Connect4 {
 		return false;
 	}
 	
+	/**
+	 * @param fileName	opening book file
+	 * @return			mapped opening book, or null if none
+	 */
+	static Connect4Book openBook(String fileName) {
+		if (!new File(fileName).exists()) return null;
+		try {
+			Connect4Book book = new Connect4Book(fileName);
+			LOGGER.config(String.format("Opening book %s: %d positions with ply < %d%n",
+					fileName, book.size(), book.getPlies()));
+			return book;
+		} catch (IOException e) {
+			LOGGER.warning(String.format("Opening book not used: %s%n", e.getMessage()));
+			return null;
+		}
+	}
+
+	/**
+	 * Restore solver table snapshot, if any, so that positions solved
+	 * in earlier runs are not searched again
+	 */
+	static void loadSolverTable() {
+		if (TableFile == null || !new File(TableFile).exists()) return;
+		try {
+			int n = Solver.loadTable(TableFile, null);
+			LOGGER.config(String.format("Solver table %s: %d entries restored%n", TableFile, n));
+		} catch (IOException e) {
+			LOGGER.warning(String.format("Solver table not restored: %s%n", e.getMessage()));
+		}
+	}
+
+	/**
+	 * Save solver table snapshot, if any, and exit
+	 */
+	static void quit() {
+		if (TableFile != null) {
+			try {
+				int n = Solver.saveTable(TableFile, null);
+				LOGGER.config(String.format("Solver table %s: %d entries saved%n", TableFile, n));
+			} catch (IOException e) {
+				LOGGER.warning(String.format("Solver table not saved: %s%n", e.getMessage()));
+			}
+		}
+		System.exit(0);
+	}
+
 	/**
 	 * Play Connect Four games until quit (q) command entered
 	 * 
-	 * @param args none
+	 * @param args optional opening book file, default BOOK_FILE, and
+	 * 				solver table snapshot file, restored if it exists
+	 * 				and saved on quit
 	 */
 	public static void main(String []args){
 		LOGGER.setLevel(Level.CONFIG);
 		long DEBUG_SEED = 424242424242424247L;  // Fixed seed for debugging  TODO: use random seed
 		
-//		TreeSearch mcts = new MCTSClassic(new Random(DEBUG_SEED));
-		TreeSearch mcts = new MCTSSolver(new Random(DEBUG_SEED));
+//		MCTS mcts = new MCTSClassic(new Random(DEBUG_SEED));
+		MCTS mcts = new MCTSSolver(new Random(DEBUG_SEED));
+		mcts.setTreeMemoryLimit(Runtime.getRuntime().maxMemory() / 2);
+		Solver = new Connect4Solver();
+		SearchMetrics.register(mcts);
+		SearchMetrics.register(Solver);
+		Connect4Book book = openBook(args.length > 0 ? args[0] : BOOK_FILE);
+		if (args.length > 1) TableFile = args[1];
+		loadSolverTable();
 		Connect4Position root = new Connect4Position();	// Initialize game
 
 		while (true) {
@@ -114,13 +177,24 @@ public class Connect4 {
 				case "O":
 				case "o": {		// Machine plays X
 					while (!isGameOver(root)) {
-						Variation pv = mcts.search(root, SEARCH_LIMIT);
+						String source = "";		// of move, for printing
+						Variation pv = book != null ? book.probe(root) : null;
+						if (pv != null) {
+							source = book.isSolved(root) ? "book, solved " : "book ";
+						} else {
+							if (root.getPly() >= SOLVER_PLY) {	// perfect play if in reach
+								pv = Solver.search(root, SOLVER_LIMIT);
+								if (pv != null) source = "solved ";
+							}
+							if (pv == null) pv = mcts.search(root, SEARCH_LIMIT);
+						}
 						Move move = pv.getMove();
-						System.out.printf("%d. Machine's move %s (score %+d):%n",
+						System.out.printf("%d. Machine's move %s (%sscore %+d):%n",
 								root.getPly()+1,
 								move.toString(),
+								source,
 								pv.getScore());
-						root = (Connect4Position) root.getChild(move);
+						root = (Connect4Position) root.promoteChild(move);	// keep searched subtree
 						root.print();
 						if (isGameOver(root)) break;
 						root = opponentsMove(root);
@@ -135,6 +209,7 @@ public class Connect4 {
 
 				case "Q":		// Quit
 				case "q":  
+					quit();
 					return;
 
 				default:
@@ -0,0 +1,169 @@
+package kgorlen.games.connect4;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import kgorlen.games.Variation;
+
+/**
+ * Connect Four opening book read through a MappedByteBuffer, so only
+ * the pages probed are read and nothing is loaded onto the heap.
+ * 
+ * File layout, big-endian:
+ * 
+ * 		int		MAGIC
+ * 		int		VERSION
+ * 		int		plies: book holds positions with ply < plies
+ * 		int		number of entries
+ * 		long[]	entries, sorted
+ * 
+ * Entry layout (bit 63 through bit 0):
+ * 
+ * 		0:1 | key:49 | solved:1 | score:6 | column:7
+ * 
+ * where key is Connect4Solver.key() of the position, score is the
+ * Connect4Solver score + SCORE_OFFSET if solved, else SCORE_OFFSET,
+ * and column is the board byte of the book move (0 = "g" through
+ * 6 = "a").
+ * 
+ * @see Connect4BookGenerator
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class Connect4Book {
+	public static final int MAGIC = 0x4334424b;		// "C4BK"
+	public static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final int VALUE_BITS = 14;
+	static final int SCORE_OFFSET = 32;
+
+	private final MappedByteBuffer buffer;
+	private final int plies;
+	private final int size;
+
+	/**
+	 * Map a book file
+	 * 
+	 * @param fileName	book file written by write()
+	 * @throws IOException	if the file cannot be read or is not a book
+	 */
+	public Connect4Book(String fileName) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+				FileChannel channel = file.getChannel()) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+			throw new IOException(fileName + ": not a Connect4 opening book");
+		if (buffer.getInt(4) != VERSION)
+			throw new IOException(String.format("%s: book version %d, expected %d",
+					fileName, buffer.getInt(4), VERSION));
+		plies = buffer.getInt(8);
+		size = buffer.getInt(12);
+		if ((long) HEADER_BYTES + 8L*size != buffer.capacity())
+			throw new IOException(fileName + ": truncated opening book");
+	}
+
+	/**
+	 * @param key		Connect4Solver.key() of position
+	 * @param solved	true if score is exact
+	 * @param score		Connect4Solver score, ignored if not solved
+	 * @param column	board byte of book move
+	 * @return			packed entry
+	 */
+	static long pack(long key, boolean solved, int score, int column) {
+		assert key >>> 49 == 0 : "Key out of range";
+		assert score >= -SCORE_OFFSET && score < SCORE_OFFSET :
+			"Score out of range: " + score;
+		return key << VALUE_BITS
+				| (solved ? 1L << 13 : 0)
+				| (long) ((solved ? score : 0) + SCORE_OFFSET) << 7
+				| column;
+	}
+
+	/**
+	 * Write a book file
+	 * 
+	 * @param fileName	file to write
+	 * @param plies		book holds positions with ply < plies
+	 * @param entries	entries made by pack(), sorted in place
+	 * @throws IOException	if the file cannot be written
+	 */
+	static void write(String fileName, int plies, long[] entries) throws IOException {
+		Arrays.sort(entries);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(fileName)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(plies);
+			out.writeInt(entries.length);
+			for (long entry : entries) out.writeLong(entry);
+		}
+	}
+
+	/**
+	 * Binary search of the mapped entries
+	 * 
+	 * @param key	Connect4Solver.key() of position
+	 * @return		entry for key, or -1 if none
+	 */
+	private long find(long key) {
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			final long entry = buffer.getLong(HEADER_BYTES + 8*mid);
+			final long k = entry >>> VALUE_BITS;
+			if (k < key) lo = mid + 1;
+			else if (k > key) hi = mid - 1;
+			else return entry;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param p	position to find
+	 * @return	Variation of the book move, scored by Connect4Solver if
+	 * 			solved or 0 if not, or null if p is not in the book
+	 */
+	public Variation probe(Connect4Position p) {
+		if (p.getPly() >= plies) return null;
+		final long entry = find(Connect4Solver.key(p.board(p.getPly() & 1), p.occupied()));
+		if (entry < 0) return null;
+		final long move = p.moves() & (0xffL << 8*(entry & 0x7f));
+		assert move != 0 : "Book move not legal";
+		final Variation pvar = p.newVariation((int) (entry >>> 7 & 0x3f) - SCORE_OFFSET);
+		pvar.addMove(new Connect4Move(move));
+		return pvar;
+	}
+
+	/**
+	 * @param p	position to find
+	 * @return	true if the book score of p is exact
+	 */
+	public boolean isSolved(Connect4Position p) {
+		if (p.getPly() >= plies) return false;
+		final long entry = find(Connect4Solver.key(p.board(p.getPly() & 1), p.occupied()));
+		return entry >= 0 && (entry & 1L << 13) != 0;
+	}
+
+	/**
+	 * @return	book holds positions with ply < plies
+	 */
+	public int getPlies() {
+		return plies;
+	}
+
+	/**
+	 * @return	number of positions in book
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,100 @@
+package kgorlen.games.connect4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import kgorlen.games.Log;
+import kgorlen.games.SearchMetrics;
+import kgorlen.games.Variation;
+import kgorlen.games.mcts.MCTS;
+import kgorlen.games.mcts.MCTSSolver;
+
+/**
+ * Writes a Connect4Book of every position with ply < plies.  Each
+ * position is solved by Connect4Solver if possible within solverLimit
+ * positions; otherwise the book move is the one found by an MCTSSolver
+ * search of mctsIterations iterations, and the book score is unsolved.
+ * 
+ * Usage: Connect4BookGenerator file [plies [solverLimit [mctsIterations]]]
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class Connect4BookGenerator {
+	private static final Logger LOGGER = Log.LOGGER;
+
+	public static final int DEFAULT_PLIES = 4;
+	public static final int DEFAULT_SOLVER_LIMIT = 4000000;
+	public static final int DEFAULT_MCTS_ITERATIONS = 200000;
+	static final long SEED = 424242424242424247L;
+
+	/**
+	 * @param plies	generate positions with ply < plies
+	 * @return		all distinct non-terminal positions with ply < plies
+	 */
+	static List<Connect4Position> positions(int plies) {
+		List<Connect4Position> all = new ArrayList<Connect4Position>();
+		Map<Long, Connect4Position> level = new HashMap<Long, Connect4Position>();
+		Connect4Position start = new Connect4Position();
+		level.put(start.key(), start);
+		for (int ply = 0; ply < plies; ply++) {
+			all.addAll(level.values());
+			Map<Long, Connect4Position> next = new HashMap<Long, Connect4Position>();
+			for (Connect4Position p : level.values()) {
+				for (long m = p.moves(); m != 0; m &= m - 1) {
+					Connect4Position child = (Connect4Position) p.copy();
+					child.makeMove(m & -m);
+					if (!child.isWin() && !child.isDraw()) next.putIfAbsent(child.key(), child);
+				}
+			}
+			level = next;
+		}
+		return all;
+	}
+
+	/**
+	 * @param args	file [plies [solverLimit [mctsIterations]]]
+	 * @throws IOException	if the book cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: Connect4BookGenerator file [plies [solverLimit [mctsIterations]]]");
+			System.exit(1);
+		}
+		final int plies = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PLIES;
+		final int solverLimit = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SOLVER_LIMIT;
+		final int mctsIterations = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MCTS_ITERATIONS;
+		LOGGER.setLevel(Level.WARNING);
+
+		List<Connect4Position> positions = positions(plies);
+		System.out.format("%d positions with ply < %d%n", positions.size(), plies);
+		Connect4Solver solver = new Connect4Solver();
+		MCTS mcts = new MCTSSolver(new Random(SEED));
+		SearchMetrics.register(solver);
+		SearchMetrics.register(mcts);
+		long[] entries = new long[positions.size()];
+		int solved = 0;
+		final long start = System.nanoTime();
+		for (int i = 0; i < entries.length; i++) {
+			Connect4Position p = positions.get(i);
+			Variation pv = solver.search(p, solverLimit);
+			final boolean exact = pv != null;
+			if (exact) solved++;
+			else pv = mcts.search(p, mctsIterations);
+			final long move = ((Connect4Move) pv.getMove()).toLong();
+			entries[i] = Connect4Book.pack(Connect4Solver.key(p.board(p.getPly() & 1), p.occupied()),
+					exact, exact ? pv.getScore() : 0, Long.numberOfTrailingZeros(move) >>> 3);
+			if ((i+1) % 100 == 0) System.out.format("%d positions, %d solved, %.1fs%n",
+					i+1, solved, (System.nanoTime() - start)/1e9);
+		}
+		Connect4Book.write(args[0], plies, entries);
+		System.out.format("Wrote %d positions (%d solved) to %s in %.1fs%n",
+				entries.length, solved, args[0], (System.nanoTime() - start)/1e9);
+	}
+}
@@ -18,11 +18,21 @@ public class Connect4MoveGenerator implements MoveGenerator {
 	/**
 	 * Initialize move generator
 	 * 
+	 * @param p			starting/current GamePosition
+	 * @param distinct	true to generate only one of each pair of
+	 * 					mirror image moves of a symmetric position
+	 */
+	public Connect4MoveGenerator(Connect4Position p, boolean distinct) {
+		moves = distinct ? p.distinctMoves() : p.moves();
+	}
+	
+	/**
+	 * Initialize move generator of distinct moves
+	 * 
 	 * @param p	starting/current GamePosition
-	 * @param debug enable debug output
 	 */
 	public Connect4MoveGenerator(Connect4Position p) {
-		moves = p.moves();
+		this(p, true);
 	}
 		
 	/* (non-Javadoc)
@@ -0,0 +1,44 @@
+package kgorlen.games.connect4;
+
+import java.util.Arrays;
+
+import kgorlen.games.Perft;
+
+/**
+ * Perft of Connect4 moves.
+ * 
+ * Usage: Connect4Perft position depth [divide] [distinct] [threads=n] [hash=MB]
+ * 
+ * where position is the columns a-g played from the empty board,
+ * e.g. "dcd", or "-" for the empty board.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ * @see kgorlen.games.Perft
+ */
+public class Connect4Perft {
+
+	/**
+	 * @param columns	letters a-g of columns played, or "-"
+	 * @return			position after columns played
+	 */
+	static Connect4Position parse(String columns) {
+		Connect4Position p = new Connect4Position();
+		if (columns.equals("-")) return p;
+		for (char c : columns.toCharArray()) {
+			Connect4Move move = p.newMove(Character.toLowerCase(c));
+			if (p.isWin() || !p.isValidMove(move))
+				throw new IllegalArgumentException(String.format("Illegal move %c in %s", c, columns));
+			p.makeMove(move);
+		}
+		return p;
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: Connect4Perft position depth [divide] [distinct] [threads=n] [hash=MB]");
+			System.exit(1);
+		}
+		Perft.run(parse(args[0]), Arrays.copyOfRange(args, 1, args.length));
+	}
+}
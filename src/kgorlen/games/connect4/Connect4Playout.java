@@ -0,0 +1,111 @@
+package kgorlen.games.connect4;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import kgorlen.games.mcts.MCTSPosition;
+import kgorlen.games.mcts.PlayoutPolicy;
+
+/**
+ * Connect Four playout policies on two long bitmaps, without copying
+ * positions or creating moves.  Every policy plays an immediate win.
+ * Otherwise:
+ * 
+ * 	UNIFORM			plays a uniformly random move; same results as
+ * 					kgorlen.games.mcts.UniformPlayout for the same Random
+ * 	WIN_OR_BLOCK	blocks an immediate loss, otherwise plays a random
+ * 					move that does not let the opponent win on top of it
+ * 	depthLimited(n)	as UNIFORM, but scores a game undecided after n
+ * 					moves with Connect4Position.heuristic(); same results
+ * 					as kgorlen.games.mcts.DepthLimitedPlayout
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class Connect4Playout implements PlayoutPolicy {
+	public static final Connect4Playout UNIFORM = new Connect4Playout(false, 0);
+	public static final Connect4Playout WIN_OR_BLOCK = new Connect4Playout(true, 0);
+
+	private final boolean winOrBlock;	// Block immediate losses
+	private final int maxPlies;			// Moves before cutoff to heuristic, 0 for none
+
+	/**
+	 * @param winOrBlock	true to block immediate losses
+	 * @param maxPlies		moves before cutoff to heuristic, 0 for none
+	 */
+	public Connect4Playout(boolean winOrBlock, int maxPlies) {
+		this.winOrBlock = winOrBlock;
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * @param maxPlies	moves before cutoff to heuristic, > 0
+	 * @return			uniform policy cut off after maxPlies moves
+	 */
+	public static Connect4Playout depthLimited(int maxPlies) {
+		assert maxPlies > 0 : "Invalid maxPlies: " + maxPlies;
+		return new Connect4Playout(false, maxPlies);
+	}
+
+	/**
+	 * @param mask	non-zero bitmask
+	 * @param randGen	random number generator
+	 * @return		randomly chosen bit of mask, in Connect4MoveGenerator order
+	 */
+	private static long randomBit(long mask, Random randGen) {
+		for (int i = randGen.nextInt(Long.bitCount(mask)); i > 0; i--) {
+			mask &= mask - 1;
+		}
+		return mask & -mask;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.PlayoutPolicy#playout(kgorlen.games.mcts.MCTSPosition, java.util.Random, java.util.concurrent.atomic.LongAdder)
+	 */
+	@Override
+	public int playout(MCTSPosition leaf, Random randGen, LongAdder plies) {
+		final Connect4Position pos = (Connect4Position) leaf;
+		int n = pos.getPly();
+		assert n < Connect4Position.ROWS*Connect4Position.COLS : "Attempt to evaluate terminal position";
+		final int start = n;
+		long mine = pos.board(n & 1);		// cells of side to move
+		long theirs = pos.board(~n & 1);
+		try {
+			while (true) {
+				if (n - start == maxPlies && maxPlies > 0) {
+					return (n & 1) == 0 ? Connect4Position.heuristic(mine, theirs)
+							: Connect4Position.heuristic(theirs, mine);
+				}
+				final long legal = Connect4Position.moves(mine | theirs);
+				if ((legal & Connect4Position.winningSquares(mine)) != 0) {
+					n++;
+					return (n & 1) == 1 ? +1 : -1;		// side to move wins
+				}
+				long choices = legal;
+				if (winOrBlock) {
+					final long threats = Connect4Position.winningSquares(theirs);
+					if ((legal & threats) != 0) choices = legal & threats;		// must block
+					else if ((legal & ~(threats >>> 1)) != 0) {
+						choices = legal & ~(threats >>> 1);		// not under a threat
+					}
+				}
+				mine |= randomBit(choices, randGen);
+				if (++n == Connect4Position.ROWS*Connect4Position.COLS) return 0;
+				final long t = mine;
+				mine = theirs;
+				theirs = t;
+			}
+		} finally {
+			if (plies != null) plies.add(n - start);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		String s = winOrBlock ? "Connect4 win-or-block" : "Connect4 uniform";
+		return maxPlies > 0 ? String.format("%s depth-limited %d plies", s, maxPlies) : s;
+	}
+}
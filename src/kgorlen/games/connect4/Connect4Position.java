@@ -10,6 +10,7 @@ import kgorlen.games.TTEntry;
 import kgorlen.games.Variation;
 import kgorlen.games.mcts.MCTS;
 import kgorlen.games.mcts.MCTSPosition;
+import kgorlen.games.mcts.PlayoutPolicy;
 
 /**
  * Represents a Connect Four GamePosition using a 2-element array of
@@ -48,11 +49,12 @@ public class Connect4Position extends MCTSPosition {
 
 	private static final Logger LOGGER = Log.LOGGER;
 	private static final String CLASS_NAME = MCTS.class.getName();
-    private static final long colMask =       0x3f3f3f3f3f3f3fL; 	// Mask for column bits
-    private static final long bottomRowMask = 0x01010101010101L;	// Mask for bits in first row
+    static final long colMask =       0x3f3f3f3f3f3f3fL; 	// Mask for column bits
+    static final long bottomRowMask = 0x01010101010101L;	// Mask for bits in first row
 
     private long[] board;	// Mask for cells occupied by black (X, board[0]) and red (O, board[1])
     private int ply;		// Number of moves; black (X) moves first
+    private long key;		// board[0] + occupied() + bottomRowMask, see key()
     
 	/**
 	 * Construct initial (empty) board position.
@@ -60,6 +62,7 @@ public class Connect4Position extends MCTSPosition {
     public Connect4Position() {
 		board = new long[2];
 		ply = 0;    	
+		key = bottomRowMask;
     }
     
 	/**
@@ -73,6 +76,7 @@ public class Connect4Position extends MCTSPosition {
 		board[0] = p.board[0];
 		board[1] = p.board[1];
 		ply = p.ply;
+		key = p.key;
 	}
 
 	/* (non-Javadoc)
@@ -120,8 +124,24 @@ public class Connect4Position extends MCTSPosition {
     }
 	
     public final long moves() {		// Return mask of legal moves
-    	return ((board[0] | board[1]) + bottomRowMask) & colMask;
+    	return moves(board[0] | board[1]);
     }
+
+	/**
+	 * @param occupied	mask of occupied cells
+	 * @return			mask of legal moves
+	 */
+	static final long moves(long occupied) {
+		return (occupied + bottomRowMask) & colMask;
+	}
+
+	/**
+	 * @param side	0 = X (black), 1 = O (red)
+	 * @return		mask of cells occupied by side
+	 */
+	final long board(int side) {
+		return board[side];
+	}
     
 	/**
 	 * Formats the specified row as a string:
@@ -207,11 +227,35 @@ public class Connect4Position extends MCTSPosition {
 		assert isValidMove(mv): String.format("Invalid move: 0x%x, valid: 0x%x", mv, moves());
 		
 		board[ply & 1] |= mv;
+		key += ((ply & 1) == 0) ? mv << 1 : mv;	// X's move adds to board[0] and occupied()
 		ply++;
 		super.reset();
 		return;
     }
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#unmakeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public void unmakeMove(Move mv) {
+		unmakeMove(((Connect4Move) mv).toLong());
+	}
+
+	/**
+	 * Take back specified move.
+	 * 
+	 * @param mv	bitmask of last move made
+	 */
+	public void unmakeMove(long mv) {
+		ply--;
+		assert (mv & (mv-1L)) == 0 && (board[ply & 1] & mv) != 0 :
+			String.format("Invalid unmove: 0x%x at ply %d", mv, ply);
+
+		board[ply & 1] ^= mv;
+		key -= ((ply & 1) == 0) ? mv << 1 : mv;
+		super.reset();
+    }
+
 	/**
      * @return	true if last color moved made 4-in-a-row
      */
@@ -267,6 +311,59 @@ public class Connect4Position extends MCTSPosition {
 		return false;
     }
 
+	/**
+	 * @param p	mask of cells occupied by one player
+	 * @return	mask of cells, occupied or not, that would complete
+	 * 			4-in-a-row for that player
+	 * 
+	 * Reference:
+	 * 	http://blog.gamesolver.org/solving-connect-four/09-anticipate-losing-moves/
+	 */
+	static final long winningSquares(long p) {
+		long r = (p << 1) & (p << 2) & (p << 3);	// vertical: 3 below
+		for (int direction = 1; direction < dirShift.length; direction++) {
+			final int s = dirShift[direction];
+			long q = (p << s) & (p << 2*s);
+			r |= q & (p << 3*s);
+			r |= q & (p >>> s);
+			q = (p >>> s) & (p >>> 2*s);
+			r |= q & (p << s);
+			r |= q & (p >>> 3*s);
+		}
+		return r & colMask;
+	}
+
+	/**
+	 * Heuristic score of the position of two players by their threats:
+	 * empty cells that would complete 4-in-a-row.
+	 * 
+	 * @param x	mask of cells occupied by X
+	 * @param o	mask of cells occupied by O
+	 * @return	+1 if X has more threats, -1 if O has more, else 0
+	 */
+	static final int heuristic(long x, long o) {
+		final long empty = ~(x | o) & colMask;
+		return Integer.signum(Long.bitCount(winningSquares(x) & empty)
+				- Long.bitCount(winningSquares(o) & empty));
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTSPosition#heuristic()
+	 */
+	@Override
+	public int heuristic() {
+		return heuristic(board[0], board[1]);
+	}
+
+	/**
+	 * @see Connect4Playout
+	 * @see kgorlen.games.mcts.MCTSPosition#playoutPolicy()
+	 */
+	@Override
+	public PlayoutPolicy playoutPolicy() {
+		return Connect4Playout.UNIFORM;
+	}
+
 	/* (non-Javadoc)
 	 * @see kgorlen.games.mcts.MCTSPosition#isDraw()
 	 */
@@ -305,6 +402,40 @@ public class Connect4Position extends MCTSPosition {
 		return isValidMove(((Connect4Move) m).toLong());
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTSPosition#encodeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public int encodeMove(Move m) {
+		if (m == null) return 0;
+		return Long.numberOfTrailingZeros(((Connect4Move) m).toLong()) + 1;	// board bit number + 1
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTSPosition#decodeMove(int)
+	 */
+	@Override
+	public Move decodeMove(int code) {
+		if (code == 0) return null;
+		return new Connect4Move(1L << (code-1));
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTSPosition#makeEncodedMove(int)
+	 */
+	@Override
+	public void makeEncodedMove(int code) {
+		makeMove(1L << (code-1));
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTSPosition#unmakeEncodedMove(int)
+	 */
+	@Override
+	public void unmakeEncodedMove(int code) {
+		unmakeMove(1L << (code-1));
+	}
+
 	/* (non-Javadoc)
 	 * @see kgorlen.games.mcts.MCTSPosition#moveGenerator()
 	 */
@@ -313,6 +444,14 @@ public class Connect4Position extends MCTSPosition {
 		return new Connect4MoveGenerator(this);
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.GamePosition#allMoves()
+	 */
+	@Override
+	public MoveGenerator allMoves() {
+		return new Connect4MoveGenerator(this, false);
+	}
+
 	/* (non-Javadoc)
 	 * @see kgorlen.games.mcts.MCTSPosition#newVariation()
 	 */
@@ -375,13 +514,112 @@ public class Connect4Position extends MCTSPosition {
 		return new Connect4Move(columnMove(letter));
 	}
 	
+	/**
+	 * Collision-free key: board[0] + occupied() + bottomRowMask.  In
+	 * each column, adding bottomRowMask to the occupied squares sets
+	 * the bit above the highest occupied square and clears the rest,
+	 * leaving X's squares below it.  The guard bits hold the marker
+	 * of a full column.
+	 * 
+	 * Reference:
+	 * 	http://blog.gamesolver.org/solving-connect-four/06-bitboard/
+	 * 
+	 * @see kgorlen.games.Position#key()
+	 */
+	@Override
+	public final long key() {
+		return key;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#keySchema()
+	 */
+	@Override
+	public String keySchema() {
+		return String.format("Connect4 %dx%d: board[0] + occupied() + bottomRowMask, minimum of mirror images",
+				COLS, ROWS);
+	}
+
+	/**
+	 * @param b	bitmap with one column per byte
+	 * @return	bitmap with columns in reverse order
+	 */
+	static long mirror(long b) {
+		return Long.reverseBytes(b) >>> 8*(8-COLS);
+	}
+
+	/**
+	 * Columns in the left half and center of the board if this
+	 * position is its own mirror image, since moves in the right
+	 * half are equivalent to them.
+	 * 
+	 * @return	mask of legal moves, less mirror image duplicates
+	 */
+	public final long distinctMoves() {
+		final long moves = moves();
+		return mirror(key) == key ? moves & -1L << 8*(COLS/2) : moves;
+	}
+
+	/**
+	 * @return	1 if the left-right mirror image has the smaller key,
+	 * 			otherwise 0
+	 * 
+	 * @see kgorlen.games.Position#symmetry()
+	 */
+	@Override
+	public int symmetry() {
+		return mirror(key) < key ? 1 : 0;
+	}
+
+	/**
+	 * Each column of the key is computed from that column alone, so
+	 * the key of the mirror image is the mirror of the key.
+	 * 
+	 * @see kgorlen.games.Position#key(int)
+	 */
+	@Override
+	public long key(int symmetry) {
+		return symmetry == 0 ? key : mirror(key);
+	}
+
+	/**
+	 * Move codes are board bit numbers + 1.
+	 * 
+	 * @see kgorlen.games.Position#transformMove(int, int)
+	 */
+	@Override
+	public int transformMove(int code, int symmetry) {
+		if (symmetry == 0 || code == 0) return code;
+		return Long.numberOfTrailingZeros(mirror(1L << (code-1))) + 1;
+	}
+
+	/**
+	 * The mirror image is its own inverse.
+	 * 
+	 * @see kgorlen.games.Position#untransformMove(int, int)
+	 */
+	@Override
+	public int untransformMove(int code, int symmetry) {
+		return transformMove(code, symmetry);
+	}
+
+	/**
+	 * Adds long[2] board array, Connect4Move, and fields.
+	 * 
+	 * @see kgorlen.games.mcts.MCTSPosition#nodeBytes()
+	 */
+	@Override
+	public int nodeBytes() {
+		return super.nodeBytes() + 32 + 16 + 16;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
 	 */
 	@Override
 	public int hashCode() {
-		int result = (int) (board[0] ^ board[1]);
-		return result ^= (int) (board[0] ^ board[1] >> 32);
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32);
 	}
 
 	/* (non-Javadoc)
@@ -0,0 +1,343 @@
+package kgorlen.games.connect4;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import kgorlen.games.Log;
+import kgorlen.games.Position;
+import kgorlen.games.TreeSearch;
+import kgorlen.games.Variation;
+
+/**
+ * Connect Four perfect solver on the two long bitmaps of a
+ * Connect4Position: null-window negamax with iterative narrowing of
+ * the window, a packed transposition table of score bounds, moves
+ * ordered by the threats they create and then center first, and
+ * pruning of moves that lose immediately, leaving only the forced
+ * move when the opponent threatens to win.
+ * 
+ * Scores are from the point of view of the side to move:
+ * 
+ * 		0		draw
+ * 		+n		win with n-1 of the side's own moves to spare,
+ * 				i.e. (43 - ply of winning move + 1)/2
+ * 		-n		loss, with the opponent's moves to spare
+ * 
+ * so a faster win scores higher.
+ * 
+ * References:
+ * 	http://blog.gamesolver.org/solving-connect-four/
+ * 	https://github.com/PascalPons/connect4
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class Connect4Solver extends TreeSearch {
+	private static final Logger LOGGER = Log.LOGGER;
+	private static final String CLASS_NAME = Connect4Solver.class.getName();
+
+	public static final int DEFAULT_TABLE_SIZE_MB = 64;
+	static final int CELLS = Connect4Position.ROWS * Connect4Position.COLS;
+	public static final int MIN_SCORE = -CELLS/2 + 3;
+	public static final int MAX_SCORE = (CELLS+1)/2 - 3;
+	private static final int LOWER_BOUND = MAX_SCORE - MIN_SCORE + 1;	// table values > this are lower bounds
+	private static final String KEY_SCHEMA = String.format(
+			"Connect4Solver %dx%d: cur + mask + bottom, 7 bits per column; scores %d to %d",
+			Connect4Position.COLS, Connect4Position.ROWS, MIN_SCORE, MAX_SCORE);
+
+	/*
+	 * Board bytes in search order: center column "d" first.  Column
+	 * "a" is the 7th byte, "g" the lowest-order byte.
+	 */
+	private static final int[] COLUMN_ORDER = { 3, 4, 2, 5, 1, 6, 0 };
+
+	private final Connect4SolverTable table;
+	private final long[][] sortedMoves = new long[CELLS][Connect4Position.COLS];	// by ply
+	private final int[][] sortedScores = new int[CELLS][Connect4Position.COLS];
+	private long positionLimit;		// Positions searched before giving up, 0 for none
+	private boolean stopped;		// Set when positionLimit reached
+
+	/**
+	 * @param tableSizeMB	transposition table size in megabytes
+	 */
+	public Connect4Solver(int tableSizeMB) {
+		super(1);		// TreeSearch table unused
+		table = new Connect4SolverTable(tableSizeMB);
+	}
+
+	public Connect4Solver() {
+		this(DEFAULT_TABLE_SIZE_MB);
+	}
+
+	/**
+	 * @param cur	mask of cells occupied by side to move
+	 * @param mask	mask of occupied cells
+	 * @return		49-bit key: cur + mask + bottom row, 7 bits per column
+	 */
+	static long key(long cur, long mask) {
+		final long k = cur + mask + Connect4Position.bottomRowMask;
+		long key = 0;
+		for (int c = 0; c < Connect4Position.COLS; c++) {
+			key |= ((k >>> 8*c) & 0x7f) << 7*c;
+		}
+		return key;
+	}
+
+	/**
+	 * @param cur	mask of cells occupied by side to move
+	 * @param mask	mask of occupied cells
+	 * @return		true if side to move can win with its next move
+	 */
+	static boolean canWinNext(long cur, long mask) {
+		return (Connect4Position.winningSquares(cur) & Connect4Position.moves(mask)) != 0;
+	}
+
+	/**
+	 * Legal moves after which the opponent cannot win immediately:
+	 * only the blocking move if the opponent threatens to win, none if
+	 * the opponent has two threats, and never the cell below an
+	 * opponent's threat.
+	 * 
+	 * @param cur	mask of cells occupied by side to move
+	 * @param mask	mask of occupied cells
+	 * @return		mask of moves that do not lose immediately
+	 */
+	static long nonLosingMoves(long cur, long mask) {
+		long possible = Connect4Position.moves(mask);
+		final long threats = Connect4Position.winningSquares(cur ^ mask) & ~mask;
+		final long forced = possible & threats;
+		if (forced != 0) {
+			if ((forced & (forced - 1)) != 0) return 0;		// cannot block two threats
+			possible = forced;
+		}
+		return possible & ~(threats >>> 1);
+	}
+
+	/**
+	 * Null-window negamax.  The side to move must not be able to win
+	 * with its next move.
+	 * 
+	 * @param cur	mask of cells occupied by side to move
+	 * @param mask	mask of occupied cells
+	 * @param ply	number of moves played
+	 * @param alpha	lower bound of window
+	 * @param beta	upper bound of window
+	 * @return		exact score if within (alpha, beta), else a bound
+	 */
+	private int negamax(long cur, long mask, int ply, int alpha, int beta) {
+		assert alpha < beta : "Empty window";
+		assert !canWinNext(cur, mask) : "Side to move can win";
+		if (positionLimit > 0 && positionsSearched >= positionLimit) {
+			stopped = true;
+			return alpha;
+		}
+		positionsSearched++;
+
+		final long next = nonLosingMoves(cur, mask);
+		if (next == 0) return -(CELLS - ply)/2;			// opponent wins next move
+		if (ply >= CELLS - 2) return 0;					// no winning move left
+
+		int min = -(CELLS - 2 - ply)/2;					// opponent cannot win next move
+		if (alpha < min) {
+			alpha = min;
+			if (alpha >= beta) return alpha;
+		}
+		int max = (CELLS - 1 - ply)/2;					// cannot win next move
+		final long key = key(cur, mask);
+		final int val = table.get(key);
+		if (val > LOWER_BOUND) {
+			min = val + 2*MIN_SCORE - MAX_SCORE - 2;
+			if (alpha < min) {
+				alpha = min;
+				if (alpha >= beta) {
+					ttHits++;
+					return alpha;
+				}
+			}
+		} else if (val != 0) {
+			max = val + MIN_SCORE - 1;
+		}
+		if (beta > max) {
+			beta = max;
+			if (alpha >= beta) {
+				if (val != 0) ttHits++;
+				return beta;
+			}
+		}
+
+		// Order moves by threats created, then center first
+		final long[] moves = sortedMoves[ply];
+		final int[] scores = sortedScores[ply];
+		int n = 0;
+		for (int c : COLUMN_ORDER) {
+			final long move = next & (Connect4Position.colMask & 0xffL << 8*c);
+			if (move == 0) continue;
+			final int score = Long.bitCount(Connect4Position.winningSquares(cur | move)
+					& ~(mask | move) & Connect4Position.colMask);
+			int j = n++;
+			for (; j > 0 && scores[j-1] < score; j--) {
+				moves[j] = moves[j-1];
+				scores[j] = scores[j-1];
+			}
+			moves[j] = move;
+			scores[j] = score;
+		}
+
+		for (int i = 0; i < n; i++) {
+			final int score = -negamax(cur ^ mask, mask | moves[i], ply+1, -beta, -alpha);
+			if (stopped) return alpha;
+			if (score >= beta) {
+				table.put(key, score + MAX_SCORE - 2*MIN_SCORE + 2);	// lower bound
+				return score;
+			}
+			if (score > alpha) alpha = score;
+		}
+		table.put(key, alpha - MIN_SCORE + 1);	// upper bound
+		return alpha;
+	}
+
+	/**
+	 * Find exact score by a sequence of null-window searches, each
+	 * halving the range of possible scores.
+	 * 
+	 * @param cur	mask of cells occupied by side to move
+	 * @param mask	mask of occupied cells
+	 * @param ply	number of moves played
+	 * @return		exact score, meaningless if stopped
+	 */
+	private int solve(long cur, long mask, int ply) {
+		if (canWinNext(cur, mask)) return (CELLS + 1 - ply)/2;
+		int min = -(CELLS - ply)/2;
+		int max = (CELLS + 1 - ply)/2;
+		while (min < max && !stopped) {
+			int med = min + (max - min)/2;
+			if (med <= 0 && min/2 < med) med = min/2;
+			else if (med >= 0 && max/2 > med) med = max/2;
+			final int r = negamax(cur, mask, ply, med, med + 1);
+			if (r <= med) max = r;
+			else min = r;
+		}
+		return min;
+	}
+
+	/**
+	 * @param p	non-terminal position
+	 * @return	exact score of p, meaningless if stopped
+	 */
+	private int solve(Connect4Position p) {
+		final int ply = p.getPly();
+		return solve(p.board(ply & 1), p.occupied(), ply);
+	}
+
+	/**
+	 * @param p		non-terminal position
+	 * @param score	exact score of p
+	 * @return		a move of p with that score, or 0 if stopped
+	 */
+	private long bestMove(Connect4Position p, int score) {
+		final int ply = p.getPly();
+		final long cur = p.board(ply & 1);
+		final long mask = p.occupied();
+		final long possible = p.moves();
+		final long wins = possible & Connect4Position.winningSquares(cur);
+		if (wins != 0) return wins & -wins;
+		for (int c : COLUMN_ORDER) {
+			final long move = possible & (Connect4Position.colMask & 0xffL << 8*c);
+			if (move == 0) continue;
+			final int childScore = solve(cur ^ mask, mask | move, ply+1);
+			if (stopped) return 0;
+			if (-childScore == score) return move;
+		}
+		throw new RuntimeException("No move with score " + score);
+	}
+
+	/**
+	 * Solve root position.  The transposition table is kept between
+	 * searches, since its bounds hold for any position.
+	 * 
+	 * @param root	non-terminal Connect4Position
+	 * @param limit	maximum number of positions searched, 0 for no limit
+	 * @return		principal variation to end of game with root score,
+	 * 				or null if root not solved within limit.  The
+	 * 				variation is truncated if the limit is reached
+	 * 				after the first move is found.
+	 * 
+	 * @see kgorlen.games.TreeSearch#search(kgorlen.games.Position, int)
+	 */
+	@Override
+	public Variation search(Position root, int limit) {
+		LOGGER.config(() -> String.format("%s.search limit=%d positions, table=%d entries%n",
+				CLASS_NAME, limit, table.capacity()));
+		final Connect4Position start = (Connect4Position) root;
+		assert !start.isWin() && !start.isDraw() : "root is terminal position";
+		setRoot(root);
+		positionLimit = limit;
+		stopped = false;
+		startTiming();
+
+		final int score = solve(start);
+		Variation pvar = null;
+		if (!stopped) {
+			pvar = start.newVariation(score);
+			Connect4Position p = (Connect4Position) start.copy();
+			int s = score;
+			positionLimit = 0;				// always find first move
+			while (!p.isWin() && !p.isDraw()) {
+				final long move = bestMove(p, s);
+				if (stopped) break;
+				pvar.addMove(new Connect4Move(move));
+				p.makeMove(move);
+				s = -s;
+				positionLimit = limit == 0 ? 0 : positionsSearched + limit;
+			}
+			stopped = false;
+		}
+
+		stopTiming();
+		logStatistics();
+		if (pvar == null) {
+			LOGGER.info(() -> String.format("  Not solved within %d positions%n", limit));
+			return null;
+		}
+		Variation.logPrincipalVariation(pvar, CLASS_NAME);
+		return pvar;
+	}
+
+	/**
+	 * Save the solver table, whose keys and values differ from
+	 * those of the TreeSearch transposition table.
+	 * 
+	 * @see kgorlen.games.TreeSearch#saveTable(java.lang.String, kgorlen.games.Position)
+	 */
+	@Override
+	public int saveTable(String fileName, Position p) throws IOException {
+		return table.save(fileName, KEY_SCHEMA);
+	}
+
+	/**
+	 * Restore the solver table, which is always kept across searches.
+	 * 
+	 * @see kgorlen.games.TreeSearch#loadTable(java.lang.String, kgorlen.games.Position)
+	 */
+	@Override
+	public int loadTable(String fileName, Position p) throws IOException {
+		return table.load(fileName, KEY_SCHEMA);
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.TreeSearch#getTTSize()
+	 */
+	@Override
+	public int getTTSize() {
+		return table.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.TreeSearch#ttStatistics()
+	 */
+	@Override
+	protected String ttStatistics() {
+		return String.format("%d of %d table entries, %d table hits",
+				table.size(), table.capacity(), ttHits);
+	}
+}
@@ -0,0 +1,182 @@
+package kgorlen.games.connect4;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.util.Arrays;
+
+import kgorlen.games.TableFile;
+
+/**
+ * Transposition table of Connect4Solver score bounds, packed into five
+ * bytes per entry: the low 32 bits of the key and a one-byte value.
+ * Entries are indexed by key modulo a prime table size, and a new
+ * entry always replaces the old one.
+ * 
+ * Keys are 49 bits (7 columns of 7 bits), so by the Chinese remainder
+ * theorem the index and the stored 32 bits identify a key uniquely
+ * when the table size is a prime greater than 2^17.
+ * 
+ * Reference:
+ * 	http://blog.gamesolver.org/solving-connect-four/07-transposition-table/
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class Connect4SolverTable {
+	public static final int BYTES_PER_ENTRY = 5;
+	static final int MIN_ENTRIES = (1<<17) + 29;	// smallest prime > 2^17
+	public static final String FILE_FORMAT = "Connect4SolverTable: long count, {long key, byte value}[count]";
+
+	private final int[] keys;		// low 32 bits of key
+	private final byte[] values;	// 0 for empty entry
+	private int size;				// number of occupied entries
+
+	/**
+	 * @param sizeMB	approximate table size in megabytes
+	 */
+	public Connect4SolverTable(int sizeMB) {
+		long entries = ((long) sizeMB << 20) / BYTES_PER_ENTRY;
+		int capacity = nextPrime((int) Math.min(Math.max(entries, MIN_ENTRIES), Integer.MAX_VALUE - 64));
+		keys = new int[capacity];
+		values = new byte[capacity];
+	}
+
+	/**
+	 * @param n	positive number
+	 * @return	smallest prime >= n
+	 */
+	static int nextPrime(int n) {
+		for (;; n++) {
+			if (n < 2 || (n > 2 && (n & 1) == 0)) continue;
+			boolean prime = true;
+			for (int d = 3; (long) d*d <= n; d += 2) {
+				if (n % d == 0) {
+					prime = false;
+					break;
+				}
+			}
+			if (prime) return n;
+		}
+	}
+
+	/**
+	 * @param key	49-bit key
+	 * @return		index of entry for key
+	 */
+	private int index(long key) {
+		return (int) (key % keys.length);
+	}
+
+	/**
+	 * @param key	49-bit key
+	 * @param value	value 1-255 to save
+	 */
+	public void put(long key, int value) {
+		assert value > 0 && value <= 0xff : "Value out of range: " + value;
+		final int i = index(key);
+		if (values[i] == 0) size++;
+		keys[i] = (int) key;
+		values[i] = (byte) value;
+	}
+
+	/**
+	 * @param key	49-bit key
+	 * @return		value saved for key, or 0 if none
+	 */
+	public int get(long key) {
+		final int i = index(key);
+		return keys[i] == (int) key ? values[i] & 0xff : 0;
+	}
+
+	/**
+	 * Recover the full key of an occupied entry by the Chinese
+	 * remainder theorem: key = low + 2^32*t, where t < 2^17 < capacity
+	 * satisfies low + 2^32*t = i (mod capacity).
+	 * 
+	 * @param i		index of occupied entry
+	 * @param inv	inverse of 2^32 modulo capacity
+	 * @return		49-bit key of entry
+	 */
+	private long fullKey(int i, long inv) {
+		final long low = keys[i] & 0xffffffffL;
+		final long t = Math.floorMod(i - low, (long) keys.length) * inv % keys.length;
+		return low + (t << 32);
+	}
+
+	/**
+	 * Write all entries to a snapshot file
+	 * 
+	 * @param fileName	file to write
+	 * @param schema	description of key and value encoding
+	 * @return			number of entries written
+	 * @throws IOException	if the file cannot be written
+	 * 
+	 * @see TableFile
+	 */
+	public int save(String fileName, String schema) throws IOException {
+		final long inv = BigInteger.ONE.shiftLeft(32)
+				.modInverse(BigInteger.valueOf(keys.length)).longValue();
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(fileName)))) {
+			TableFile.writeHeader(out, FILE_FORMAT, schema);
+			out.writeLong(size);
+			for (int i = 0; i < keys.length; i++) {
+				if (values[i] == 0) continue;
+				final long key = fullKey(i, inv);
+				assert index(key) == i && (int) key == keys[i] : "Key not recovered at " + i;
+				out.writeLong(key);
+				out.writeByte(values[i]);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Put all entries of a snapshot file, which may have been written
+	 * by a table of another size.  The file is memory mapped, not read
+	 * onto the heap.
+	 * 
+	 * @param fileName	file written by save()
+	 * @param schema	description of key and value encoding
+	 * @return			number of entries read
+	 * @throws IOException	if the file cannot be read or does not match
+	 */
+	public int load(String fileName, String schema) throws IOException {
+		MappedByteBuffer buffer = TableFile.map(fileName, FILE_FORMAT, schema);
+		final long count = buffer.remaining() >= 8 ? buffer.getLong() : -1;
+		if (count < 0 || buffer.remaining() != 9*count)
+			throw new IOException(fileName + ": truncated solver table");
+		for (long i = 0; i < count; i++) {
+			final long key = buffer.getLong();
+			put(key, buffer.get() & 0xff);
+		}
+		return (int) count;
+	}
+
+	/**
+	 * Remove all entries
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, (byte) 0);
+		size = 0;
+	}
+
+	/**
+	 * @return	number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return	maximum number of entries
+	 */
+	public int capacity() {
+		return keys.length;
+	}
+}
@@ -0,0 +1,28 @@
+package kgorlen.games.mcts;
+
+/**
+ * Playout policy for any MCTSPosition: as UniformPlayout, but a game
+ * not decided after a maximum number of moves is scored by
+ * MCTSPosition.heuristic().
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class DepthLimitedPlayout extends UniformPlayout {
+
+	/**
+	 * @param maxPlies	moves before cutoff to heuristic(), > 0
+	 */
+	public DepthLimitedPlayout(int maxPlies) {
+		super(maxPlies);
+		assert maxPlies > 0 : "Invalid maxPlies: " + maxPlies;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("depth-limited %d plies", maxPlies);
+	}
+}
@@ -1,7 +1,17 @@
 package kgorlen.games.mcts;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 import kgorlen.games.Log;
@@ -15,12 +25,33 @@ public abstract class MCTS extends TreeSearch {
 	private static final String CLASS_NAME = MCTS.class.getName();
 
 	protected double uctC;	// Upper Confidence Bounds for Trees (UCT) coefficient
-	static Random randGen;	// Random number generator for simulation
+	SelectionPolicy selection;	// Child value for select()
+	Random randGen;			// Random number generator for simulation
 	int depth;				// Current search depth
 	int maxDepth;			// Maximum search depth
 	String indent;			// Indent string for log output
+	int rootThreads = 1;	// Number of independent trees searched in parallel
+	int treeThreads = 1;	// Number of threads searching one shared tree
+	int virtualLoss;		// Virtual loss per tree-parallel descent, 0 for none
+	boolean sharedTree;		// Tree searched concurrently by other workers
+	int leafPlayouts = 1;	// Number of playouts per evaluation of a leaf
+	ExecutorService leafPool;	// Threads running leaf-parallel playouts
+	int playouts;			// Number of playouts backed up by current iteration
+	PlayoutPolicy playoutPolicy;	// Simulation policy, null for position's default
+	LongAdder playoutPlies = new LongAdder();	// Moves played by playouts
+	long playoutNanos;		// Time spent in playout()
+	SearchBudget budget;	// Limits of current search, possibly shared by workers
+	long nodes;				// Number of tree nodes created by search
+	long maxTreeBytes;		// Tree memory limit, 0 for none
+	long maxTreeNodes;		// Tree node limit derived from maxTreeBytes
+	long treeNodes;			// Number of nodes in tree
+	long prunedNodes;		// Number of tree nodes pruned by search
+	long provenNodes;		// Number of tree nodes proven win or loss by search
+	MCTSArena arena;		// Arena-backed tree, or null for MCTSPosition tree
+	int[] arenaPath = new int[64];	// Encoded moves made from root during arena search
+	ArrayList<MCTSPosition> virtualLossPath = new ArrayList<MCTSPosition>();
 	
-	public static ArrayList<MCTSPosition> visited;	// TODO: remove after tested
+	ArrayList<MCTSPosition> visited;	// TODO: remove after tested
 
 	/**
 	 * @param c Upper Confidence Bounds for Trees (UCT) coefficient
@@ -30,6 +61,7 @@ public abstract class MCTS extends TreeSearch {
 	public MCTS(double c, Random r, int ttCapacity) {
 		super(ttCapacity);
 		uctC = c;
+		selection = new UCTPolicy(c);
 		randGen = r;
 	}
 
@@ -38,8 +70,9 @@ public abstract class MCTS extends TreeSearch {
 	 * @param r instance of Random number generator
 	 */
 	public MCTS(double c, Random r) {
-		super();
+		super(1);		// TreeSearch table unused
 		uctC = c;
+		selection = new UCTPolicy(c);
 		randGen = r;
 	}
 
@@ -47,8 +80,9 @@ public abstract class MCTS extends TreeSearch {
 	 * @param r instance of Random number generator
 	 */
 	public MCTS(Random r) {
-		super();
+		super(1);		// TreeSearch table unused
 		uctC = Math.sqrt(2.0);
+		selection = new UCTPolicy(uctC);
 		randGen = r;
 	}
 
@@ -56,64 +90,591 @@ public abstract class MCTS extends TreeSearch {
 	 * @param c Upper Confidence Bounds for Trees (UCT) coefficient
 	 */
 	public MCTS(double c) {
-		super();
+		super(1);		// TreeSearch table unused
 		uctC = c;
+		selection = new UCTPolicy(c);
 		randGen = new Random();
 	}
 
 	public MCTS() {
-		super();
+		super(1);		// TreeSearch table unused
 		uctC = Math.sqrt(2.0);
+		selection = new UCTPolicy(uctC);
 		randGen = new Random();
 	}
 
-	/* (non-Javadoc)
+	/**
+	 * @param root	Position to be searched
+	 * @param limit	number of iterations
+	 * @return principal Variation found by search
+	 * 
 	 * @see kgorlen.games.TreeSearch#search(kgorlen.games.Position, int)
 	 */
 	@Override
 	public Variation search(Position root, int limit) {
+		return search(root, SearchLimits.iterations(limit));
+	}
+
+	/**
+	 * Search until any of the specified limits is reached or the root
+	 * position is solved.  In root-parallel search each tree has the
+	 * full playout, node and iteration limits.
+	 * 
+	 * @param root		Position to be searched
+	 * @param limits	time, playout, node and iteration limits
+	 * @return principal Variation found by search
+	 */
+	public Variation search(Position root, SearchLimits limits) {
 		assert !((MCTSPosition) root).isWin() && !((MCTSPosition)root).isDraw() :
 			"root is terminal position";
 
 		String className = getClass().getSimpleName();
-		LOGGER.config(String.format("%s.search limit=%d%n", className, limit));
-		LOGGER.config(String.format("%s.search UCT coefficient=%f%n", className, uctC));
+		LOGGER.config(String.format("%s.search limits: %s%n", className, limits.toString()));
+		LOGGER.config(String.format("%s.search selection policy: %s%n", className, selection.toString()));
 		LOGGER.info(() -> String.format("%s.search root position:%n%s",
 				className, root.toString() ));
 
 		setRoot(root);
 		maxDepth = 0;
-		elapsedTime();
+		nodes = 0;
+		prunedNodes = 0;
+		provenNodes = 0;
+		playoutPlies.reset();
+		playoutNanos = 0;
+		maxTreeNodes = maxTreeBytes / (arena != null ?
+				MCTSArena.BYTES_PER_NODE : ((MCTSPosition) root).nodeBytes());
+		startTiming();
+		final long start = System.nanoTime();
 		
+		if (arena != null) {
+			iterateArena((MCTSPosition) root, new SearchBudget(limits, start));
+			nodes = budget.getNodes();
+		} else if (rootThreads > 1) {
+			searchRootParallel((MCTSPosition) root, limits, start);
+		} else if (treeThreads > 1) {
+			searchTreeParallel((MCTSPosition) root, new SearchBudget(limits, start));
+		} else {
+			iterate((MCTSPosition) root, new SearchBudget(limits, start));
+			nodes = budget.getNodes();
+		}
+		visited = null;			// release nodes of last iteration
+	
+		stopTiming();
+		logStatistics();
+		if (arena != null) LOGGER.info(() -> String.format("  %d arena nodes%n", arena.size()));
+		else if (rootThreads > 1) LOGGER.info(() -> String.format("  %d root-parallel trees%n", rootThreads));
+		else if (treeThreads > 1) LOGGER.info(() -> String.format("  %d tree-parallel threads, virtual loss=%d%n",
+				treeThreads, virtualLoss));
+		if (leafPlayouts > 1) LOGGER.info(() -> String.format("  %d leaf-parallel playouts%n", leafPlayouts));
+		LOGGER.info(() -> String.format("  %d tree nodes created%n", nodes));
+		if (prunedNodes > 0) LOGGER.info(() -> String.format("  %d tree nodes pruned%n", prunedNodes));
+		if (provenNodes > 0) LOGGER.info(() -> String.format("  %d tree nodes proven%n", provenNodes));
+		LOGGER.info(() -> String.format("  Max depth=%d%n", maxDepth));		
+		final PlayoutPolicy policy = playoutPolicy != null ? playoutPolicy : ((MCTSPosition) root).playoutPolicy();
+		LOGGER.info(() -> String.format("  %s playouts: %.0f playouts/s, average length %.1f plies%n",
+				policy.toString(), positionsSearched / Math.max(playoutNanos / 1e9, 1e-9),
+				(double) playoutPlies.sum() / Math.max(positionsSearched, 1) ));
+		Variation pvar = getPrincipalVariation();
+		Variation.logPrincipalVariation(pvar, className);
+		LOGGER.info(String.format("%s's move: %s (score %+d)%n",
+				className, pvar.getMove().toString(), pvar.getScore() ));
+		return pvar;
+	}
+
+	/**
+	 * Run MCTS iterations until budget, which may be shared with other
+	 * workers, is exhausted or root position solved
+	 * 
+	 * @param root		root of search tree
+	 * @param budget	limits of search
+	 */
+	void iterate(MCTSPosition root, SearchBudget budget) {
+		String className = getClass().getSimpleName();
+		this.budget = budget;
+		final boolean pruning = maxTreeNodes > 0 && !sharedTree;
+		if (pruning) treeNodes = root.countNodes();
 		try {
-			for (int i=1; i <= limit; i++) {		// TODO: Change limit to elapsed time
-				final int iteration = i;
+			for (long i = budget.nextIteration(); i != 0; i = budget.nextIteration()) {
+				final long iteration = i;
 				LOGGER.fine(() -> String.format(">>> %s.search begin iteration %d%n",
 						className, iteration));
 				depth = 0;
 				indent = "";
 				visited = new ArrayList<MCTSPosition>();
-				final int result = -mcts((MCTSPosition) root);
-				LOGGER.fine(() -> String.format("<<< %s.search end iteration %d, result=%d, principal variation:%n%s",
-						className, iteration, result, getPrincipalVariation().toString()));
+				playouts = 1;
+				try {
+					final int result = -mcts(root);
+					LOGGER.fine(() -> String.format("<<< %s.search end iteration %d, result=%d, principal variation:%n%s",
+							className, iteration, result, getPrincipalVariation(root).toString()));
+				} finally {
+					revertVirtualLoss();
+				}
+				if (pruning && treeNodes > maxTreeNodes) pruneTree(root);
 			}
 		} catch(MCTSSearchException e) {
+			budget.stop();				// stop other workers
 			LOGGER.fine(() -> String.format("%s.search terminated: %s%n",
 					className, e.toString() ));
 		}
-	
-		elapsedTime();
-		logStatistics();
-		LOGGER.info(() -> String.format("  Max depth=%d%n", maxDepth));		
-		Variation pvar = getPrincipalVariation();
-		Variation.logPrincipalVariation(pvar, className);
-		LOGGER.info(String.format("%s's move: %s (score %+d)%n",
-				className, pvar.getMove().toString(), pvar.getScore() ));
-		return pvar;
 	}
 
 	abstract int mcts(MCTSPosition root) throws MCTSSearchException;
 
+	/**
+	 * Search an arena-backed tree instead of a tree of MCTSPosition
+	 * nodes.  Root, tree and leaf parallel settings other than leaf
+	 * playouts are ignored; the tree memory limit stops the search
+	 * when the arena is full.
+	 * 
+	 * @param enabled	true to search an arena-backed tree
+	 * 
+	 * @see MCTSArena
+	 */
+	public void setArena(boolean enabled) {
+		arena = enabled ? new MCTSArena() : null;
+	}
+
+	/**
+	 * Run MCTS iterations over the arena until budget is exhausted or
+	 * root position solved.  The arena is cleared first; moves are made
+	 * and taken back on a single copy of root.
+	 * 
+	 * @param root		root of search tree
+	 * @param budget	limits of search
+	 */
+	void iterateArena(MCTSPosition root, SearchBudget budget) {
+		String className = getClass().getSimpleName();
+		this.budget = budget;
+		arena.clear();
+		arena.setMaxNodes(maxTreeNodes > 0 ? (int) Math.min(maxTreeNodes, Integer.MAX_VALUE) : Integer.MAX_VALUE);
+		budget.addNodes(1);
+		final MCTSPosition pos = (MCTSPosition) root.copy();
+		try {
+			for (long i = budget.nextIteration(); i != 0; i = budget.nextIteration()) {
+				final long iteration = i;
+				LOGGER.fine(() -> String.format(">>> %s.search begin arena iteration %d%n",
+						className, iteration));
+				depth = 0;
+				indent = "";
+				playouts = 1;
+				final int result = -mcts(arena, pos);
+				LOGGER.fine(() -> String.format("<<< %s.search end arena iteration %d, result=%d%n",
+						className, iteration, result));
+			}
+		} catch(MCTSSearchException e) {
+			budget.stop();
+			LOGGER.fine(() -> String.format("%s.search terminated: %s%n",
+					className, e.toString() ));
+		}
+	}
+
+	/**
+	 * One MCTS iteration over the arena-backed tree.
+	 * 
+	 * @param arena	search tree
+	 * @param pos	position of root node; restored before returning
+	 * @return		iteration result from the root's point of view
+	 * @throws MCTSSearchException	root position solved or arena full
+	 */
+	abstract int mcts(MCTSArena arena, MCTSPosition pos) throws MCTSSearchException;
+
+	/**
+	 * Expand arena node, counting the nodes created against the budget
+	 * 
+	 * @param arena	search tree
+	 * @param node	node to expand
+	 * @param pos	position of node
+	 * @throws MCTSSearchException	arena full
+	 */
+	void expand(MCTSArena arena, int node, MCTSPosition pos) throws MCTSSearchException {
+		int n = arena.expand(node, pos);
+		if (n < 0) throw new MCTSSearchException("Tree memory limit reached");
+		budget.addNodes(n);
+	}
+
+	/**
+	 * Select child of arena node, as select(MCTSPosition, String)
+	 * 
+	 * @param arena		search tree
+	 * @param parent	expanded node
+	 * @return			index of selected child
+	 */
+	int select(MCTSArena arena, int parent) {
+		final int first = arena.firstChild[parent];
+		final int end = first + arena.childCount[parent];
+		final double parentTerm = selection.parentTerm(arena.visits[parent], end - first);
+		int selected = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int child = first; child < end; child++) {
+			if (arena.isWin(child)) return child;
+			double uctValue = selection.value(arena.score[child], arena.visits[child], parentTerm);
+			if (uctValue > bestValue) {
+				selected = child;
+				bestValue = uctValue;
+			}
+		}
+		assert selected >= 0 : "No move selected";
+		return selected;
+	}
+
+	/**
+	 * Make move of arena node on pos, saving it at specified depth
+	 * 
+	 * @param arena	search tree
+	 * @param node	node whose move to make
+	 * @param pos	position of node's parent
+	 * @param ply	index of move in arenaPath
+	 */
+	void makeArenaMove(MCTSArena arena, int node, MCTSPosition pos, int ply) {
+		if (ply == arenaPath.length) arenaPath = Arrays.copyOf(arenaPath, 2*ply);
+		arenaPath[ply] = arena.move[node];
+		pos.makeEncodedMove(arena.move[node]);
+	}
+
+	/**
+	 * Take back moves saved by makeArenaMove()
+	 * 
+	 * @param pos	position after moves
+	 * @param n		number of moves to take back
+	 */
+	void unmakeArenaMoves(MCTSPosition pos, int n) {
+		while (n > 0) pos.unmakeEncodedMove(arenaPath[--n]);
+	}
+
+	/**
+	 * @param start	root Position of arena search
+	 * @return		principal variation of arena-backed tree
+	 */
+	private Variation getArenaPrincipalVariation(Position start) {
+		Variation pvar = start.newVariation();
+		pvar.setStart(start);
+		Position pos = start.copy();
+		int parent = 0;
+		while (arena.isExpanded(parent)) {
+			final int first = arena.firstChild[parent];
+			final int end = first + arena.childCount[parent];
+			int bestChild = -1;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			for (int child = first; child < end; child++) {
+				if (arena.visits[child] == 0) continue;
+				double value = pvScore(arena.score[child], arena.visits[child]);
+				if (value > bestValue) {
+					bestChild = child;
+					bestValue = value;
+				}
+			}
+			if (bestChild < 0) break;
+			if (pvar.size() == 0) pvar.setScore(arena.score[bestChild]);
+			Move move = pos.decodeMove(arena.move[bestChild]);
+			pvar.add(move);
+			pos.makeMove(move);
+			parent = bestChild;
+		}
+		assert pvar.size() > 0 : "getPrincipalVariation failed";
+		return pvar;
+	}
+
+	/**
+	 * @param r	random number generator for worker
+	 * @return	MCTS instance of the same kind for a root-parallel worker
+	 */
+	abstract MCTS newWorker(Random r);
+
+	/**
+	 * Root parallelization: search the root with several independent
+	 * trees, then merge the statistics of root children.
+	 * 
+	 * Reference:
+	 * 	Chaslot, Winands, van den Herik, "Parallel Monte-Carlo Tree Search"
+	 * 
+	 * @param threads	number of trees searched in parallel, 1 for
+	 * 					a single tree searched by the calling thread
+	 */
+	public void setRootThreads(int threads) {
+		rootThreads = threads;
+	}
+
+	/**
+	 * Search independent copies of root in rootThreads threads, each
+	 * with its own random number generator seeded from randGen, and
+	 * merge the results into root.
+	 * 
+	 * @param root		root of search tree
+	 * @param limits	limits of search of each tree
+	 * @param start		System.nanoTime() at start of search
+	 */
+	private void searchRootParallel(MCTSPosition root, SearchLimits limits, long start) {
+		MCTS[] workers = new MCTS[rootThreads];
+		MCTSPosition[] roots = new MCTSPosition[rootThreads];
+		Thread[] threads = new Thread[rootThreads];
+		for (int i = 0; i < rootThreads; i++) {
+			final MCTS worker = workers[i] = newWorker(new Random(randGen.nextLong()));
+			worker.selection = selection;
+			worker.maxTreeNodes = maxTreeNodes / rootThreads;
+			final MCTSPosition workerRoot = roots[i] = (MCTSPosition) root.copy();
+			workerRoot.reset();
+			final SearchBudget workerBudget = new SearchBudget(limits, start);
+			threads[i] = new Thread(() -> worker.iterate(workerRoot, workerBudget),
+					String.format("%s worker %d", CLASS_NAME, i+1));
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		for (Thread t : threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		for (MCTS worker : workers) {
+			positionsSearched += worker.positionsSearched;
+			playoutPlies.add(worker.playoutPlies.sum());
+			playoutNanos += worker.playoutNanos;
+			nodes += worker.budget.getNodes();
+			prunedNodes += worker.prunedNodes;
+			provenNodes += worker.provenNodes;
+			if (worker.maxDepth > maxDepth) maxDepth = worker.maxDepth;
+		}
+		mergeRoots(root, roots);
+	}
+
+	/**
+	 * Tree parallelization: several threads search one shared tree.
+	 * Node statistics are updated atomically, and each thread adds a
+	 * virtual loss to the nodes it descends through until its playout
+	 * is backed up, steering concurrent threads toward other branches.
+	 * 
+	 * Reference:
+	 * 	Chaslot, Winands, van den Herik, "Parallel Monte-Carlo Tree Search"
+	 * 
+	 * @param threads		number of threads searching the tree, 1 for
+	 * 						the calling thread only
+	 * @param virtualLoss	losses added to each node on the path of a
+	 * 						descent in progress, 0 for none
+	 */
+	public void setTreeThreads(int threads, int virtualLoss) {
+		treeThreads = threads;
+		this.virtualLoss = virtualLoss;
+	}
+
+	/**
+	 * Search root in treeThreads threads, each with its own random
+	 * number generator seeded from randGen.
+	 * 
+	 * @param root		root of search tree
+	 * @param budget	limits of search shared by all threads
+	 */
+	private void searchTreeParallel(MCTSPosition root, SearchBudget budget) {
+		MCTS[] workers = new MCTS[treeThreads];
+		Thread[] threads = new Thread[treeThreads];
+		for (int i = 0; i < treeThreads; i++) {
+			final MCTS worker = workers[i] = newWorker(new Random(randGen.nextLong()));
+			worker.selection = selection;
+			worker.sharedTree = true;
+			worker.virtualLoss = virtualLoss;
+			threads[i] = new Thread(() -> worker.iterate(root, budget),
+					String.format("%s tree worker %d", CLASS_NAME, i+1));
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		for (Thread t : threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		for (MCTS worker : workers) {
+			positionsSearched += worker.positionsSearched;
+			playoutPlies.add(worker.playoutPlies.sum());
+			playoutNanos += worker.playoutNanos;
+			provenNodes += worker.provenNodes;
+			if (worker.maxDepth > maxDepth) maxDepth = worker.maxDepth;
+		}
+		nodes = budget.getNodes();
+	}
+
+	/**
+	 * Leaf parallelization: each leaf is evaluated by several playouts
+	 * run in parallel, each with a thread-local random number generator,
+	 * and their summed result is backed up as a multi-visit update.
+	 * 
+	 * Reference:
+	 * 	Chaslot, Winands, van den Herik, "Parallel Monte-Carlo Tree Search"
+	 * 
+	 * @param playouts	number of playouts per leaf, 1 for a single
+	 * 					playout run by the calling thread
+	 * @param threads	number of threads running playouts
+	 */
+	public void setLeafParallel(int playouts, int threads) {
+		if (leafPool != null) leafPool.shutdown();
+		leafPlayouts = playouts;
+		leafPool = playouts > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	/**
+	 * Set the simulation policy.  By default each position is played
+	 * out by its playoutPolicy(): uniformly random moves, with a
+	 * bitboard version for Connect4.
+	 * 
+	 * @param policy	playout policy, or null for the position's default
+	 * 
+	 * @see PlayoutPolicy
+	 */
+	public void setPlayoutPolicy(PlayoutPolicy policy) {
+		playoutPolicy = policy;
+	}
+
+	/**
+	 * Evaluate leaf by leafPlayouts playouts, and set playouts
+	 * to the number run.
+	 * 
+	 * @param leaf	position to evaluate
+	 * @return		sum of playout results, range -playouts to +playouts
+	 */
+	int playout(MCTSPosition leaf) {
+		final PlayoutPolicy policy = playoutPolicy != null ? playoutPolicy : leaf.playoutPolicy();
+		final long start = System.nanoTime();
+		try {
+			if (leafPool == null) {
+				playouts = 1;
+				budget.addPlayouts(1);
+				return policy.playout(leaf, randGen, playoutPlies);
+			}
+			List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(leafPlayouts);
+			for (int i = 0; i < leafPlayouts; i++) {
+				tasks.add(() -> policy.playout(leaf, ThreadLocalRandom.current(), playoutPlies));
+			}
+			int sum = 0;
+			try {
+				for (Future<Integer> result : leafPool.invokeAll(tasks)) sum += result.get();
+			} catch (InterruptedException | ExecutionException e) {
+				throw new RuntimeException("Leaf-parallel playout failed", e);
+			}
+			playouts = leafPlayouts;
+			budget.addPlayouts(playouts);
+			return sum;
+		} finally {
+			playoutNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Expand parent, counting the nodes created against the budget
+	 * 
+	 * @param parent	position to expand
+	 * @param indent	string prepended to log messages
+	 */
+	void expand(MCTSPosition parent, String indent) {
+		int n = parent.expand(indent);
+		budget.addNodes(n);
+		treeNodes += n;
+	}
+
+	/**
+	 * Limit the memory used by the search tree.  When the estimated
+	 * size of the tree reaches maxBytes, the least visited subtrees are
+	 * pruned back to unexpanded leaves until the tree is 3/4 of the
+	 * limit.  Each root-parallel tree is limited to an equal share;
+	 * a tree searched by tree-parallel threads is not pruned.
+	 * 
+	 * @param maxBytes	maximum estimated tree size, 0 for no limit
+	 * 
+	 * @see MCTSPosition#nodeBytes()
+	 */
+	public void setTreeMemoryLimit(long maxBytes) {
+		maxTreeBytes = maxBytes;
+	}
+
+	/**
+	 * Prune least visited subtrees.  Nodes are pruned in order of
+	 * increasing visits, deepest first among equals, so descendants
+	 * are pruned before their ancestors.
+	 * 
+	 * @param root	root of search tree, never pruned
+	 */
+	void pruneTree(MCTSPosition root) {
+		final long target = maxTreeNodes * 3 / 4;
+		ArrayList<MCTSPosition> expanded = new ArrayList<MCTSPosition>();
+		collectExpanded(root, expanded);
+		expanded.sort(Comparator.comparingInt((MCTSPosition p) -> p.visits)
+				.thenComparing(Comparator.comparingInt((MCTSPosition p) -> p.getPly()).reversed()));
+		for (MCTSPosition node : expanded) {
+			if (treeNodes <= target) break;
+			int n = node.collapse();
+			treeNodes -= n;
+			prunedNodes += n;
+		}
+		LOGGER.fine(() -> String.format("%s.pruneTree %d nodes remain%n", CLASS_NAME, treeNodes));
+	}
+
+	/**
+	 * @param parent	root of subtree
+	 * @param expanded	receives expanded descendants of parent
+	 */
+	private static void collectExpanded(MCTSPosition parent, List<MCTSPosition> expanded) {
+		for (MCTSPosition child : parent.children) {
+			if (child.children == null) continue;
+			expanded.add(child);
+			collectExpanded(child, expanded);
+		}
+	}
+
+	/**
+	 * Remove virtual losses added by select() during the current iteration
+	 */
+	private void revertVirtualLoss() {
+		for (MCTSPosition node : virtualLossPath) node.addVirtualLoss(-virtualLoss);
+		virtualLossPath.clear();
+	}
+
+	/**
+	 * Replace children of root with the merged children of roots.
+	 * Visits and scores are summed, except that a score proven by
+	 * MCTSSolver (+-SCORE_INFINITY) in any tree is the merged score.
+	 * Each merged child keeps the subtree of its most visited copy.
+	 * 
+	 * @param root	root to receive merged statistics
+	 * @param roots	roots of independently searched trees
+	 */
+	static void mergeRoots(MCTSPosition root, MCTSPosition[] roots) {
+		root.children = null;
+		root.visits = 0;
+		root.setScore(0);
+		List<MCTSPosition> sources = new ArrayList<MCTSPosition>();	// copies providing subtrees
+		for (MCTSPosition r : roots) {
+			root.visits += r.visits;
+			root.setScore(mergeScore(root.getScore(), r.getScore()));
+			if (r.children == null) continue;
+			for (MCTSPosition child : r.children) {
+				MCTSPosition merged = root.findChild(child.getMove());
+				if (merged == null) {
+					merged = (MCTSPosition) child.copy();	// shares child's subtree
+					merged.move = child.move;
+					root.addChild(merged);
+					sources.add(child);
+					continue;
+				}
+				int i = root.children.indexOf(merged);
+				if (child.visits > sources.get(i).visits) {
+					merged.children = child.children;
+					sources.set(i, child);
+				}
+				merged.visits += child.visits;
+				merged.setScore(mergeScore(merged.getScore(), child.getScore()));
+			}
+		}
+	}
+
+	/**
+	 * @return	sum of scores, or a proven (+-SCORE_INFINITY) score
+	 */
+	private static int mergeScore(int a, int b) {
+		if (a == SCORE_INFINITY || a == -SCORE_INFINITY) return a;
+		if (b == SCORE_INFINITY || b == -SCORE_INFINITY) return b;
+		return a + b;
+	}
+
 	/**
 	 * Select child node to expand
 	 * 
@@ -121,8 +682,9 @@ public abstract class MCTS extends TreeSearch {
 	 *   http://mcts.ai/code/java.html
 	 *   http://scalab.uc3m.es/~seminarios/seminar11/slides/lucas2.pdf
 	 * 
-	 * EPSILON small random number 0-EPSILON to break ties in unexpanded nodes,
-	 * i.e. when visits = 0.  1/EPSILON > SCORE_INFINITY
+	 * Each pending virtual loss counts as a visit that lost.
+	 * 
+	 * @see SelectionPolicy
 	 * 
 	 * @param parent position of children to select
 	 * @param indent string prepended to log messages
@@ -136,8 +698,10 @@ public abstract class MCTS extends TreeSearch {
 		
 		MCTSPosition selected = null;
 		double bestValue = Double.NEGATIVE_INFINITY;
+		final List<MCTSPosition> children = parent.children;
+		final double parentTerm = selection.parentTerm(parent.visits, children.size());
 
-		for (MCTSPosition child : parent.children) {
+		for (MCTSPosition child : children) {
 			assert parent.getPly()+1 == child.getPly() :
 				"Invalid child position ply";
 			assert child.getMove() != null :
@@ -146,7 +710,7 @@ public abstract class MCTS extends TreeSearch {
 			if (child.isWin()) {
 				LOGGER.finer(() -> String.format("%s... %s.select returning win move %s to ply %d%n",
 						indent, CLASS_NAME, child.getMove().toString(), child.getPly() ));
-				return child;
+				return addVirtualLoss(child);
 			}
 
 //			if (child.isDraw()) {
@@ -155,7 +719,8 @@ public abstract class MCTS extends TreeSearch {
 //				continue;
 //			}
 
-			double uctValue = uct(parent, child);
+			final int vl = child.virtualLoss;
+			double uctValue = selection.value(child.getScore() - vl, child.visits + vl, parentTerm);
 			LOGGER.finest(() -> String.format("%s  move %s to ply %d UCT=%+f%n",
 					indent, child.getMove().toString(), child.getPly(), uctValue ));
 			if (uctValue > bestValue) {
@@ -171,6 +736,18 @@ public abstract class MCTS extends TreeSearch {
 				String.format("%s... %s.select returning null at ply %d (all moves draw)%n", CLASS_NAME, parent.getPly() ) :
 					String.format("%s... %s.select returning move %s to ply %d UCT=%+f%n",
 							indent, CLASS_NAME, bp.getMove().toString(), bp.getPly(), bv));    	
+		return addVirtualLoss(selected);
+	}
+
+	/**
+	 * @param selected	child chosen by select()
+	 * @return			selected, with virtual loss added if enabled
+	 */
+	private MCTSPosition addVirtualLoss(MCTSPosition selected) {
+		if (virtualLoss != 0) {
+			selected.addVirtualLoss(virtualLoss);
+			virtualLossPath.add(selected);
+		}
 		return selected;
 	}
 
@@ -183,18 +760,38 @@ public abstract class MCTS extends TreeSearch {
 	}
 	
 	/**
-	 * Compute Upper Confidence Bounds for Trees
+	 * Set the child value used by select().  The default is UCTPolicy
+	 * with the UCT coefficient given to the constructor.
 	 * 
-	 * @param parent position
-	 * @param child position
-	 * @return Upper Confidence Bounds for Trees value
+	 * @param policy	selection policy
 	 */
-	private static final double EPSILON = 1.0/(10.0*SCORE_INFINITY);
-
-	protected double uct(MCTSPosition parent, MCTSPosition child) {
-		return child.getScore() / (child.visits + EPSILON) +
-		uctC * Math.sqrt(Math.log(parent.visits+1) / (child.visits + EPSILON)) +
-		randGen.nextDouble() * EPSILON;		
+	public void setSelectionPolicy(SelectionPolicy policy) {
+		selection = policy;
+	}
+	
+	/**
+	 * @return	playouts backed up by current or last search; parallel
+	 * 			searches add their workers' playouts when done
+	 */
+	@Override
+	public long getPlayouts() {
+		return positionsSearched;
+	}
+	
+	/**
+	 * @return	maximum depth of tree descents
+	 */
+	@Override
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+	
+	/**
+	 * @return	tree nodes proven win or loss by MCTSSolver
+	 */
+	@Override
+	public long getProvenNodes() {
+		return provenNodes;
 	}
 	
 	/**
@@ -213,6 +810,7 @@ public abstract class MCTS extends TreeSearch {
 	 */
 	@Override
 	public Variation getPrincipalVariation(Position start) {
+		if (arena != null) return getArenaPrincipalVariation(start);
 		LOGGER.finer(() -> String.format("Entering %s.getPrincipalVariation%n", CLASS_NAME));
 		Variation pvar = start.newVariation();
 		pvar.setStart(start);
@@ -275,6 +873,17 @@ public abstract class MCTS extends TreeSearch {
 	 * @param child
 	 * @return score for specified position
 	 */
-	abstract double pvScore(MCTSPosition child);
+	double pvScore(MCTSPosition child) {
+		return pvScore(child.getScore(), child.visits);
+	}
+
+	/**
+	 * Calculate score for principal variation move selection
+	 * 
+	 * @param score		total score of child
+	 * @param visits	visits of child
+	 * @return score for specified child
+	 */
+	abstract double pvScore(int score, int visits);
 	
 }
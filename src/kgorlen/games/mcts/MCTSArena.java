@@ -0,0 +1,166 @@
+package kgorlen.games.mcts;
+
+import java.util.Arrays;
+
+import kgorlen.games.Move;
+import kgorlen.games.MoveGenerator;
+import kgorlen.games.TreeSearch;
+
+/**
+ * MCTS tree stored as a struct of arrays: node i is described by
+ * element i of each array, and the children of a node occupy
+ * consecutive indices.  Node 0 is the root.
+ *
+ * Nodes hold no game position.  A search descends from the root by
+ * making each node's move on a single MCTSPosition and takes the
+ * moves back afterwards, so a node costs BYTES_PER_NODE bytes instead
+ * of an MCTSPosition object, its board, its Move and its children list.
+ *
+ * Scores follow MCTSPosition: from the point of view of the side that
+ * made the node's move, or +-SCORE_INFINITY once proven by MCTSSolver.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class MCTSArena {
+	public static final int BYTES_PER_NODE = 4 + 4 + 4 + 2 + 2 + 1;
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	static final byte WIN = 1;			// node's move wins
+	static final byte DRAW = 2;			// node's move draws
+
+	int[] visits;
+	int[] score;
+	int[] firstChild;					// index of first child, 0 if not expanded
+	short[] childCount;
+	short[] move;						// Position.encodeMove() of node's move
+	byte[] state;						// WIN, DRAW, or 0
+	private int size;					// number of nodes
+	private int maxNodes = Integer.MAX_VALUE;
+
+	/**
+	 * @param capacity	initial number of nodes
+	 */
+	public MCTSArena(int capacity) {
+		capacity = Math.max(capacity, 16);
+		visits = new int[capacity];
+		score = new int[capacity];
+		firstChild = new int[capacity];
+		childCount = new short[capacity];
+		move = new short[capacity];
+		state = new byte[capacity];
+		clear();
+	}
+
+	public MCTSArena() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Remove all nodes except an unvisited root
+	 */
+	public void clear() {
+		size = 1;
+		visits[0] = 0;
+		score[0] = 0;
+		firstChild[0] = 0;
+		childCount[0] = 0;
+		move[0] = 0;
+		state[0] = 0;
+	}
+
+	/**
+	 * @return	number of nodes
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param maxNodes	maximum number of nodes
+	 */
+	public void setMaxNodes(int maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Grow arrays to hold at least n nodes
+	 */
+	private void ensureCapacity(int n) {
+		if (n <= visits.length) return;
+		int capacity = (int) Math.min(Math.max(2L * visits.length, n), Integer.MAX_VALUE - 8);
+		visits = Arrays.copyOf(visits, capacity);
+		score = Arrays.copyOf(score, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		childCount = Arrays.copyOf(childCount, capacity);
+		move = Arrays.copyOf(move, capacity);
+		state = Arrays.copyOf(state, capacity);
+	}
+
+	/**
+	 * Add all children of node.  Each child's move is made and taken
+	 * back on pos to find wins and draws.
+	 *
+	 * @param node	node to expand
+	 * @param pos	position of node
+	 * @return		number of children added, or -1 if maxNodes reached
+	 */
+	int expand(int node, MCTSPosition pos) {
+		assert firstChild[node] == 0 : "Node already expanded";
+		int first = size;
+		MoveGenerator gen = pos.moveGenerator();
+		while (gen.hasNext()) {
+			if (size == maxNodes) {
+				size = first;
+				return -1;
+			}
+			ensureCapacity(size + 1);
+			Move m = gen.next();
+			int code = pos.encodeMove(m);
+			assert code <= Short.MAX_VALUE : "Move code out of range: " + code;
+			pos.makeMove(m);
+			visits[size] = 0;
+			score[size] = 0;
+			firstChild[size] = 0;
+			childCount[size] = 0;
+			move[size] = (short) code;
+			state[size] = pos.isWin() ? WIN : pos.isDraw() ? DRAW : 0;
+			pos.unmakeMove(m);
+			size++;
+		}
+		assert size > first : "Failed to generate children of non-terminal position";
+		firstChild[node] = first;
+		childCount[node] = (short) (size - first);
+		return size - first;
+	}
+
+	final boolean isExpanded(int node) {
+		return firstChild[node] != 0;
+	}
+
+	final boolean isWin(int node) {
+		return state[node] == WIN;
+	}
+
+	final boolean isDraw(int node) {
+		return state[node] == DRAW;
+	}
+
+	/**
+	 * @return	true if node score is proven (+-SCORE_INFINITY)
+	 */
+	final boolean isProven(int node) {
+		return score[node] == TreeSearch.SCORE_INFINITY
+				|| score[node] == -TreeSearch.SCORE_INFINITY;
+	}
+
+	/**
+	 * Add to score of node, unless proven
+	 *
+	 * @param node	index of node
+	 * @param delta	score to add
+	 */
+	final void updateScore(int node, int delta) {
+		if (!isProven(node)) score[node] += delta;
+	}
+}
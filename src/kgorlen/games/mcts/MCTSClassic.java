@@ -1,5 +1,6 @@
 package kgorlen.games.mcts;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
@@ -21,6 +22,9 @@ public class MCTSClassic extends MCTS {
 	private static final Logger LOGGER = Log.LOGGER;
 	private static final String CLASS_NAME = MCTSClassic.class.getName();
 
+	private int[] pathNodes = new int[64];	// Arena nodes visited by current iteration
+	private int[] pathSigns = new int[64];	// scoreSign() of position at each node
+
 	/**
 	 * @param c Upper Confidence Bounds for Trees (UCT) coefficient
 	 * @param r instance of Random number generator
@@ -56,6 +60,14 @@ public class MCTSClassic extends MCTS {
 		super();
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTS#newWorker(java.util.Random)
+	 */
+	@Override
+	MCTS newWorker(Random r) {
+		return new MCTSClassic(uctC, r, 1);
+	}
+
 	@Override
 	public int mcts(MCTSPosition root) throws MCTSSearchException {
 		LOGGER.finer(() -> String.format(
@@ -84,6 +96,11 @@ public class MCTSClassic extends MCTS {
             			c.getMove().toString(), c.getPly(), c.sideLastMoved() ));
         		break;			
         	}
+        	if (child.isDraw()) {	// full board cannot be expanded
+            	LOGGER.finer(() -> String.format("  Move %s to ply %d is draw, cannot expand%n",
+            			c.getMove().toString(), c.getPly() ));
+        		break;
+        	}
 
         	LOGGER.finest(() -> String.format("  Visiting ply %d position:%n%s",
         			c.getPly(), c.toString() ));
@@ -99,7 +116,7 @@ public class MCTSClassic extends MCTS {
 
 // Expand selected leaf position
         if (bestParent.children == null) {	// parent is non-terminal leaf
-        	bestParent.expand();
+        	expand(bestParent, "");
         	child = select(bestParent);
         }
 
@@ -136,17 +153,97 @@ public class MCTSClassic extends MCTS {
         }
 
 // Simulate: Play out (random) moves until win/loss/draw       
-        final int score = bestChild.evaluate();
-        positionsSearched++;
+        assert sharedTree || (bestChild.getScore() == 0 && bestChild.visits == 0 && bestChild.children == null) :
+        	"Evaluation of previously visited position attempted";
+        final int score = playout(bestChild);
+        positionsSearched += playouts;
         
 // Update: Update statistics for visited nodes with playout results      
-        updateStats(visited, score);
+        updateStats(visited, score, playouts);
 		LOGGER.finer(() -> String.format(
 				"}Exiting %s.mcts, playout result=%d%n",
 				CLASS_NAME, root.scoreSign() * score ));			
         return root.scoreSign() * score;
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTS#mcts(kgorlen.games.mcts.MCTSArena, kgorlen.games.mcts.MCTSPosition)
+	 */
+	@Override
+	int mcts(MCTSArena a, MCTSPosition pos) throws MCTSSearchException {
+		int n = 0;				// Moves made on pos
+		int parent = 0;
+		int child = 0;
+		pathNodes[0] = 0;
+		pathSigns[0] = pos.scoreSign();
+		try {
+// Select leaf position to expand
+			while (a.isExpanded(parent)) {
+				child = select(a, parent);
+				if (a.state[child] != 0) break;		// win or draw cannot be expanded
+				makeArenaMove(a, child, pos, n++);
+				parent = child;
+				addPathNode(n, parent, pos.scoreSign());
+				if (++depth > maxDepth) maxDepth = depth;
+			}
+
+// Expand selected leaf position
+			if (!a.isExpanded(parent)) {
+				expand(a, parent, pos);
+				child = select(a, parent);
+			}
+			makeArenaMove(a, child, pos, n++);
+			addPathNode(n, child, pos.scoreSign());
+
+			final int score;
+			if (a.isWin(child)) score = pos.scoreWin();
+			else if (a.isDraw(child)) score = 0;
+			else {
+// Simulate: Play out (random) moves until win/loss/draw
+				score = playout(pos);
+				positionsSearched += playouts;
+			}
+
+// Update: Update statistics for visited nodes with playout results
+			for (int i = 0; i <= n; i++) {
+				a.visits[pathNodes[i]] += playouts;
+				a.updateScore(pathNodes[i], score * pathSigns[i]);
+			}
+
+			if (depth == 0 && a.isWin(child))
+				throw new MCTSSearchException("Next move from root position is win");
+			if (depth == 0 && a.isDraw(child)) {
+				final int end = a.firstChild[parent] + a.childCount[parent];
+				for (int c = a.firstChild[parent]; c < end; c++) {
+					if (!a.isDraw(c)) return 0;
+				}
+				throw new MCTSSearchException("All moves from root position draw");
+			}
+			LOGGER.finer(() -> String.format(
+					"Exiting %s.mcts, arena result=%d%n",
+					CLASS_NAME, pathSigns[0] * score ));
+			return pathSigns[0] * score;
+		} finally {
+			unmakeArenaMoves(pos, n);
+		}
+	}
+
+	/**
+	 * Record arena node visited by current iteration
+	 * 
+	 * @param i		index in path
+	 * @param node	arena node
+	 * @param sign	scoreSign() of position at node
+	 */
+	private void addPathNode(int i, int node, int sign) {
+		if (i == pathNodes.length) {
+			pathNodes = Arrays.copyOf(pathNodes, 2*i);
+			pathSigns = Arrays.copyOf(pathSigns, 2*i);
+		}
+		pathNodes[i] = node;
+		pathSigns[i] = sign;
+	}
+
 	/**
 	 * References:
 	 * [1] http://ccg.doc.gold.ac.uk/teaching/ludic_computing/ludic16.pdf
@@ -159,13 +256,22 @@ public class MCTSClassic extends MCTS {
 	 * @param score from playout: -1 = X loss, 0 = draw, +1 = X win
 	 */
 	static public void updateStats(List<MCTSPosition> visited, int score) {
-		assert score >= -1 && score <= 1 :
+		updateStats(visited, score, 1);
+	}
+
+	/**
+	 * @param visited List of nodes visited during selection and expansion
+	 * @param score sum of playout results, range -playouts to +playouts
+	 * @param playouts number of playouts summed in score
+	 */
+	static public void updateStats(List<MCTSPosition> visited, int score, int playouts) {
+		assert score >= -playouts && score <= playouts :
 			String.format("Score %d out of range", score);
 
 		for (MCTSPosition node : visited) {
-			node.visits++;
+			node.addVisits(playouts);
 			int nodeScore = score * node.scoreSign();
-			node.updateScore(nodeScore);	// See reference [1] above
+			node.updateScore(nodeScore, playouts);	// See reference [1] above
 //	        if (nodeScore > 0) {			// See reference [2] above
 //		        node.score += nodeScore;
 //		    }
@@ -181,11 +287,11 @@ public class MCTSClassic extends MCTS {
 	 * Compute average score for principal variation move selection
 	 * 
 	 * (non-Javadoc)
-	 * @see kgorlen.games.mcts.MCTS#pvScore(kgorlen.games.mcts.MCTSPosition)
+	 * @see kgorlen.games.mcts.MCTS#pvScore(int, int)
 	 */
 	@Override
-	double pvScore(MCTSPosition child) {
-		return ((double) child.getScore())/child.visits;
+	double pvScore(int score, int visits) {
+		return ((double) score)/visits;
 	}
 
 }
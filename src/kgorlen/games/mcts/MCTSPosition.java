@@ -4,8 +4,11 @@
 package kgorlen.games.mcts;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Logger;
 
 import kgorlen.games.GamePosition;
@@ -35,9 +38,23 @@ public abstract class MCTSPosition implements GamePosition {
 	private final static Logger LOGGER = Log.LOGGER;
 
 	protected Move move;			// Move from parent to this child
-	List<MCTSPosition> children;
-	private int score;				// TODO: remove private, getScore()/setScore()/updateScore()
-	int visits;
+	volatile List<MCTSPosition> children;	// published once by expand()
+	private volatile int score;		// TODO: remove private, getScore()/setScore()/updateScore()
+	volatile int visits;
+	volatile int virtualLoss;		// pending tree-parallel descents through this node
+
+	/*
+	 * Atomic updates, so that several threads can search one tree
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<MCTSPosition, List> CHILDREN =
+			AtomicReferenceFieldUpdater.newUpdater(MCTSPosition.class, List.class, "children");
+	private static final AtomicIntegerFieldUpdater<MCTSPosition> SCORE =
+			AtomicIntegerFieldUpdater.newUpdater(MCTSPosition.class, "score");
+	private static final AtomicIntegerFieldUpdater<MCTSPosition> VISITS =
+			AtomicIntegerFieldUpdater.newUpdater(MCTSPosition.class, "visits");
+	private static final AtomicIntegerFieldUpdater<MCTSPosition> VIRTUAL_LOSS =
+			AtomicIntegerFieldUpdater.newUpdater(MCTSPosition.class, "virtualLoss");
 
 	/**
 	 * Constructor
@@ -62,6 +79,7 @@ public abstract class MCTSPosition implements GamePosition {
 		children = null;
 		visits = 0;
 		score = 0;    	
+		virtualLoss = 0;
 	}
 
 	public Move getMove() {
@@ -80,24 +98,61 @@ public abstract class MCTSPosition implements GamePosition {
 	}
 
 	/**
+	 * Atomically add to score, unless score has been proven
+	 * (+-SCORE_INFINITY), possibly by another thread.
+	 * 
 	 * @param score the score to add to the current score
 	 * 				range -1 to +1
 	 */
 	void updateScore(int score) {
-		assert score >= -1 && score <= 1 :
+		updateScore(score, 1);
+	}
+
+	/**
+	 * Add the summed result of several playouts to score
+	 * 
+	 * @param score		the score to add to the current score
+	 * 					range -playouts to +playouts
+	 * @param playouts	number of playouts summed in score
+	 */
+	void updateScore(int score, int playouts) {
+		assert score >= -playouts && score <= playouts :
 			"Invalid score: " + score;
-		assert this.score != TreeSearch.SCORE_INFINITY &&
-				this.score != -TreeSearch.SCORE_INFINITY :
-			"Invalid score update; current score: " + this.score;
-		this.score += score;
+		while (true) {
+			int current = this.score;
+			if (current == TreeSearch.SCORE_INFINITY
+					|| current == -TreeSearch.SCORE_INFINITY) return;
+			if (SCORE.compareAndSet(this, current, current + score)) return;
+		}
 	}
 
 	int getVisits() {
 		return visits;
 	}
 
+	/**
+	 * Atomically increment visits
+	 */
+	void incVisits() {
+		VISITS.incrementAndGet(this);
+	}
+
+	/**
+	 * @param n	number of visits to add atomically
+	 */
+	void addVisits(int n) {
+		VISITS.addAndGet(this, n);
+	}
+
+	/**
+	 * @param n	virtual loss to add (remove if negative)
+	 */
+	void addVirtualLoss(int n) {
+		VIRTUAL_LOSS.addAndGet(this, n);
+	}
+
 	public void addChild(MCTSPosition child) {
-		if (children == null) children = new LinkedList<MCTSPosition>();
+		if (children == null) children = new ArrayList<MCTSPosition>();
 		children.add(child);
 	}
 
@@ -113,26 +168,150 @@ public abstract class MCTSPosition implements GamePosition {
 		throw new RuntimeException(String.format("Move %s not found", move.toString()));
 	} 
 	
-	public void expand(String indent) {
+	/**
+	 * Add all children.  The complete list of children is published
+	 * atomically; if another thread expands this position first, its
+	 * children are kept and these are discarded.
+	 * 
+	 * @param indent string prepended to log messages
+	 * @return number of children added, 0 if expanded by another thread
+	 */
+	public int expand(String indent) {
 		MoveGenerator gen = moveGenerator();
 		LOGGER.finer(() -> String.format("%sExpanding at ply %d...%n",
 				indent, getPly() ));
+		List<MCTSPosition> newChildren = new ArrayList<MCTSPosition>();
 		while (gen.hasNext()) {
 			Move move = gen.next();
 			MCTSPosition child = (MCTSPosition) copy();
 			child.makeMove(move);
-			addChild(child);
+			newChildren.add(child);
 			LOGGER.finest(() -> String.format("%s  Added child of move %s to ply %d%n",
 					indent, move.toString(), child.getPly() ));
 		}
+		final boolean added = CHILDREN.compareAndSet(this, null, newChildren);
 		assert children != null :
 			"Failed to generate children of non-terminal position";
 		LOGGER.finer(() -> String.format("%s... %d children added at ply %d%n",
 				indent, children.size(), getPly() ));		
+		return added ? newChildren.size() : 0;
+	}
+	
+	public int expand() {
+		return expand("");
 	}
 	
-	public void expand() {
-		expand("");
+	/**
+	 * Find child for specified Move
+	 * 
+	 * @param move Move from this position
+	 * @return Child Position for specified Move, or null if not expanded
+	 */
+	MCTSPosition findChild(Move move) {
+		if (children == null) return null;
+		for (MCTSPosition child : children) {
+			if (move.equals(child.move)) return child;
+		}
+		return null;
+	}
+
+	/**
+	 * Find child equivalent by a symmetry of the board to a position
+	 * not in the tree, as when distinct move generation has left out
+	 * the mirror images of moves from a symmetric position.
+	 * 
+	 * @param p child position not in the tree
+	 * @return child with the same canonical image as p, or null if none
+	 */
+	MCTSPosition findSymmetricChild(MCTSPosition p) {
+		if (children == null) return null;
+		final long key = p.key(p.symmetry());
+		for (MCTSPosition child : children) {
+			if (child.key(child.symmetry()) == key) return child;
+		}
+		return null;
+	}
+
+	/**
+	 * Copy the visits, score, and subtree of a position equivalent to
+	 * this one by a symmetry of the board, transforming the moves of
+	 * the subtree to this position's image.
+	 * 
+	 * @param n		position with the same canonical image as this one
+	 * @param from	symmetry mapping n to its canonical image
+	 * @param to	symmetry mapping this position to its canonical image
+	 */
+	void copySubtree(MCTSPosition n, int from, int to) {
+		visits = n.visits;
+		score = n.score;
+		List<MCTSPosition> c = n.children;
+		if (c == null) return;
+		List<MCTSPosition> newChildren = new ArrayList<MCTSPosition>(c.size());
+		for (MCTSPosition nChild : c) {
+			final int code = n.transformMove(n.encodeMove(nChild.move), from);
+			MCTSPosition child = (MCTSPosition) copy();
+			child.makeMove(decodeMove(untransformMove(code, to)));
+			child.copySubtree(nChild, from, to);
+			newChildren.add(child);
+		}
+		children = newChildren;
+	}
+
+	/**
+	 * Make the child for specified Move the root of the search tree,
+	 * keeping its subtree and releasing its siblings' subtrees.  If the
+	 * child is not in the tree but a symmetric image of it is, the
+	 * image's subtree is copied.
+	 * 
+	 * @param move Move from this position
+	 * @return child position for specified Move, created if not expanded
+	 */
+	public MCTSPosition promoteChild(Move move) {
+		MCTSPosition child = findChild(move);
+		if (child == null) {
+			child = (MCTSPosition) copy();
+			child.makeMove(move);
+			MCTSPosition image = findSymmetricChild(child);
+			if (image != null) child.copySubtree(image, image.symmetry(), child.symmetry());
+		}
+		children = null;		// release siblings
+		return child;
+	}
+
+	/**
+	 * Prune subtree, leaving this position an unexpanded leaf.  Its
+	 * visits and score are kept.
+	 * 
+	 * @return number of nodes released
+	 */
+	int collapse() {
+		if (children == null) return 0;
+		int n = countNodes() - 1;
+		children = null;
+		return n;
+	}
+
+	/**
+	 * @return number of nodes in subtree rooted at this position
+	 */
+	int countNodes() {
+		int n = 1;
+		List<MCTSPosition> c = children;
+		if (c != null) {
+			for (MCTSPosition child : c) n += child.countNodes();
+		}
+		return n;
+	}
+
+	/**
+	 * Estimated size of a tree node: object header and fields of this
+	 * class, plus its slot and share of parent's children list.
+	 * Subclasses add the size of their own fields.
+	 * 
+	 * @return estimated bytes per tree node
+	 */
+	public int nodeBytes() {
+		return 48;
 	}
 	
 	/* (non-Javadoc)
@@ -140,48 +319,38 @@ public abstract class MCTSPosition implements GamePosition {
 	 */
 	@Override
 	public int evaluate() {
-		assert this.getScore() == 0 && this.visits == 0 && this.children == null:
-			"Evaluation of previously visited position attempted";
-		MCTSPosition parent = this;
+		return evaluate(ThreadLocalRandom.current());
+	}
+	
+	/**
+	 * Play out this position with its default playout policy.
+	 * 
+	 * @param randGen	random number generator for move selection
+	 * @return			score of playout result
+	 */
+	public int evaluate(Random randGen) {
+		return playoutPolicy().playout(this, randGen, null);
+	}
 
-		while (true) {
-			List<MCTSPosition> positions = new ArrayList<MCTSPosition>();
-			MoveGenerator gen = parent.moveGenerator();		
-			assert gen.hasNext() : "Attempt to evaluate terminal position";
-
-			while (gen.hasNext()) {
-				Move move = gen.next();
-				MCTSPosition child = (MCTSPosition) parent.copy();
-				child.makeMove(move);
-
-				if (child.isWin()) {
-					final int winScore = child.scoreWin();
-					LOGGER.finer(() -> String.format(
-							"Playout move %s to ply %d is win by %s, score %+d:%n%s",
-							move.toString(), child.getPly(), child.sideLastMoved(), winScore,
-							child.toString() ));
-					return winScore;
-				}
-
-				positions.add(child);
-			}
-
-			MCTSPosition child = positions.get(MCTS.randGen.nextInt(positions.size()));
-
-			LOGGER.finest(() -> String.format(
-					"%s playing move %s to ply %d...%n%s",
-					child.sideLastMoved(), child.getMove().toString(), child.getPly(), child.toString() ));
-
-			if (child.isDraw()) {
-				final int drawScore = this.scoreSign() * child.scoreDraw();
-				LOGGER.finer(() -> String.format(
-						"Playout move %s to ply %d by %s is draw, score %+d:%n%s",
-						child.getMove().toString(), child.getPly(), child.sideLastMoved(), drawScore,
-						child.toString() ));
-				return drawScore;
-			}
-			parent = child;
-		}
+	private static final PlayoutPolicy UNIFORM_PLAYOUT = new UniformPlayout();
+
+	/**
+	 * Subclasses may return a faster policy specialized for the game.
+	 * 
+	 * @return	playout policy used unless MCTS.setPlayoutPolicy() is called
+	 */
+	public PlayoutPolicy playoutPolicy() {
+		return UNIFORM_PLAYOUT;
+	}
+
+	/**
+	 * Result of a playout cut off by DepthLimitedPlayout.  The default
+	 * scores every undecided position a draw.
+	 * 
+	 * @return	estimated result from X's point of view: +1, 0, or -1
+	 */
+	public int heuristic() {
+		return 0;
 	}
 
 	/**
@@ -226,6 +395,43 @@ public abstract class MCTSPosition implements GamePosition {
 	@Override
 	public abstract void makeMove(Move m);
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#unmakeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public abstract void unmakeMove(Move m);
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#encodeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public abstract int encodeMove(Move m);
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#decodeMove(int)
+	 */
+	@Override
+	public abstract Move decodeMove(int code);
+
+	/**
+	 * Make a move encoded by encodeMove().  Subclasses override this
+	 * to make the move without allocating a Move.
+	 * 
+	 * @param code	encoded move
+	 */
+	public void makeEncodedMove(int code) {
+		makeMove(decodeMove(code));
+	}
+
+	/**
+	 * Take back the last move, encoded by encodeMove()
+	 * 
+	 * @param code	encoded move
+	 */
+	public void unmakeEncodedMove(int code) {
+		unmakeMove(decodeMove(code));
+	}
+
 	/* (non-Javadoc)
 	 * @see kgorlen.games.Position#moveGenerator(boolean)
 	 */
@@ -240,6 +446,17 @@ public abstract class MCTSPosition implements GamePosition {
 		return moveGenerator();
 	}
 
+	/**
+	 * Subclasses whose moveGenerator() skips symmetric moves override
+	 * this with a generator of every legal move.
+	 * 
+	 * @see kgorlen.games.GamePosition#allMoves()
+	 */
+	@Override
+	public MoveGenerator allMoves() {
+		return moveGenerator();
+	}
+
 	/* (non-Javadoc)
 	 * @see kgorlen.games.Position#newVariation()
 	 */
@@ -296,6 +513,42 @@ public abstract class MCTSPosition implements GamePosition {
 	@Override
 	public abstract int scoreDraw();
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#key()
+	 */
+	@Override
+	public abstract long key();
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#keySchema()
+	 */
+	@Override
+	public abstract String keySchema();
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#symmetry()
+	 */
+	@Override
+	public abstract int symmetry();
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#key(int)
+	 */
+	@Override
+	public abstract long key(int symmetry);
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#transformMove(int, int)
+	 */
+	@Override
+	public abstract int transformMove(int code, int symmetry);
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#untransformMove(int, int)
+	 */
+	@Override
+	public abstract int untransformMove(int code, int symmetry);
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
 	 */
@@ -7,6 +7,7 @@ import java.util.Random;
 import java.util.logging.Logger;
 
 import kgorlen.games.Log;
+import kgorlen.games.Move;
 import kgorlen.games.TreeSearch;
 
 /**
@@ -51,6 +52,14 @@ public class MCTSSolver extends MCTS {
 	public MCTSSolver() {
 		super();
 	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTS#newWorker(java.util.Random)
+	 */
+	@Override
+	MCTS newWorker(Random r) {
+		return new MCTSSolver(uctC, r, 1);
+	}
 		
 /*
  * 	Reference:
@@ -128,7 +137,7 @@ public class MCTSSolver extends MCTS {
 		}
 		
 // ***** EXPANSION *****
-		if (parent.children == null) parent.expand(indent);	// <<< Expand >>>
+		if (parent.children == null) expand(parent, indent);	// <<< Expand >>>
 // *****
 
 // ***** SELECTION *****
@@ -136,9 +145,10 @@ public class MCTSSolver extends MCTS {
 // *****
 
 		if (bestChild.isWin()) {	// At least one child is win for playerToMove
-			bestChild.visits++;
+			bestChild.incVisits();
 			bestChild.setScore(SCORE_INFINITY);
 			parent.setScore(-SCORE_INFINITY);
+			provenNodes++;
 			if (depth == 0) {
 				throw new MCTSSearchException("Next move from root position is win");
 			}
@@ -153,7 +163,7 @@ public class MCTSSolver extends MCTS {
 
 		if (bestChild.isDraw()) {	// selected child is draw
 			bestChild.setScore(0);
-			bestChild.visits++;
+			bestChild.incVisits();
 			LOGGER.finer(() -> String.format(
 					"%s}Exiting %s.mcts, move %s to ply %d is draw, parent total/visits=%+d/%d, result=0%n",
 					indent, CLASS_NAME, bestChild.getMove().toString(), bestChild.getPly(),
@@ -176,7 +186,7 @@ public class MCTSSolver extends MCTS {
 				bestChild.getScore(), bestChild.toString(indent) ));
 		
 		visited.add(depth+1, bestChild);
-		parent.visits++;
+		parent.incVisits();
 		int result;
 
 		if (bestChild.getScore() != SCORE_INFINITY
@@ -184,11 +194,14 @@ public class MCTSSolver extends MCTS {
 			// Selected child is not proven win or draw
 			if (bestChild.visits == 0) {
 // ***** SIMULATION *****
-				result = bestChild.scoreSign() * bestChild.evaluate();
-				bestChild.setScore(result);
-				bestChild.visits = 1;
-				parent.updateScore(-result);		// parent.computeAverage(score);
-				positionsSearched++;
+				assert sharedTree || (bestChild.getScore() == 0 && bestChild.children == null) :
+					"Evaluation of previously visited position attempted";
+				result = bestChild.scoreSign() * playout(bestChild);
+				bestChild.updateScore(result, playouts);	// another thread may have visited it
+				bestChild.addVisits(playouts);
+				parent.addVisits(playouts - 1);		// parent visit counted above
+				parent.updateScore(-result, playouts);	// parent.computeAverage(score);
+				positionsSearched += playouts;
 				LOGGER.finer(() -> String.format(
 						"%s}Exiting %s.mcts, move %s to ply %d, parent total/visits=%+d/%d, playout result=%+d%n",
 						indent, CLASS_NAME, bestChild.getMove().toString(), bestChild.getPly(),
@@ -221,9 +234,10 @@ public class MCTSSolver extends MCTS {
 		}
 		
 // Here after (1) selection of non-terminal child scored +-INFINITY or (2) recursion
-		assert bestChild.visits != 0 : "Child scored but not visited";
+		assert sharedTree || bestChild.visits != 0 : "Child scored but not visited";
 		if (result == SCORE_INFINITY) {  // playerToMove wins: mcts() returned -INFINITY
 			parent.setScore(-SCORE_INFINITY);
+			provenNodes++;
 			LOGGER.finer(() -> String.format(
 					"%s}Exiting %s.mcts, move %s to ply %d, parent total/visits=%+d/%d, result=+INFINITY (at least one move wins)%n",
 					indent, CLASS_NAME, bestChild.getMove().toString(), bestChild.getPly(), parent.getScore(), parent.visits ));
@@ -240,7 +254,7 @@ public class MCTSSolver extends MCTS {
 			for (MCTSPosition child : parent.children) {
 				LOGGER.finest(() -> String.format("%s  move %s to ply %d, total/visits=%+d/%d%n",
 						indent, child.getMove().toString(), child.getPly(), child.getScore(), child.visits ));
-				assert child.visits != 0 : "mcts() returned +INFINITY for partially evaluated position";
+				assert sharedTree || child.visits != 0 : "mcts() returned +INFINITY for partially evaluated position";
 			}
 
 			for (MCTSPosition child : parent.children) {
@@ -254,6 +268,7 @@ public class MCTSSolver extends MCTS {
 			}
 			
 			parent.setScore(SCORE_INFINITY);
+			provenNodes++;
 			LOGGER.finer(() -> String.format(
 					"%s}Exiting %s.mcts, move %s to ply %d, parent total/visits=%+d/%d, result=-INFINITY (all moves lose)%n",
 					indent, CLASS_NAME, bestChild.getMove().toString(), bestChild.getPly(), parent.getScore(), parent.visits ));
@@ -265,7 +280,8 @@ public class MCTSSolver extends MCTS {
 // Here after recursion returning -1, 0, or +1
 		assert result > -SCORE_INFINITY && result < SCORE_INFINITY :
 			"Score out of range: " + result;
-		parent.updateScore(-result);	// parent.computeAverage(score);
+		parent.addVisits(playouts - 1);	// parent visit counted above
+		parent.updateScore(-result, playouts);	// parent.computeAverage(score);
 		LOGGER.finer(() -> String.format(
 				"%s}Exiting %s.mcts, move %s to ply %d, parent total/visits=%+d/%d, result=%+d%n",
 				indent, CLASS_NAME, bestChild.getMove().toString(), bestChild.getPly(),
@@ -273,6 +289,104 @@ public class MCTSSolver extends MCTS {
 		return result;
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.MCTS#mcts(kgorlen.games.mcts.MCTSArena, kgorlen.games.mcts.MCTSPosition)
+	 */
+	@Override
+	int mcts(MCTSArena a, MCTSPosition pos) throws MCTSSearchException {
+		return mcts(a, 0, pos);
+	}
+
+	/**
+	 * mcts(MCTSPosition) over an arena-backed tree.  The move of the
+	 * selected child is made on pos for the playout or recursion and
+	 * taken back before returning.
+	 * 
+	 * @param a			search tree
+	 * @param parent	arena node of pos
+	 * @param pos		position of parent
+	 * @return			result from the point of view of the side to move at parent
+	 * @throws MCTSSearchException	root position solved or arena full
+	 */
+	private int mcts(MCTSArena a, int parent, MCTSPosition pos) throws MCTSSearchException {
+		if (pos.isWin()) return -SCORE_INFINITY;
+		if (pos.isDraw()) return 0;
+
+		if (!a.isExpanded(parent)) expand(a, parent, pos);
+		final int bestChild = select(a, parent);
+
+		if (a.isWin(bestChild)) {	// At least one child is win for playerToMove
+			a.visits[bestChild]++;
+			a.score[bestChild] = SCORE_INFINITY;
+			a.score[parent] = -SCORE_INFINITY;
+			provenNodes++;
+			if (depth == 0) throw new MCTSSearchException("Next move from root position is win");
+			return SCORE_INFINITY;
+		}
+
+		final int first = a.firstChild[parent];
+		final int end = first + a.childCount[parent];
+		if (a.isDraw(bestChild)) {	// selected child is draw
+			a.score[bestChild] = 0;
+			a.visits[bestChild]++;
+			if (depth == 0) {
+				for (int child = first; child < end; child++) {
+					if (!a.isDraw(child)) return 0;
+				}
+				a.score[parent] = 0;
+				throw new MCTSSearchException("All moves from root position draw");
+			}
+			return 0;
+		}
+
+		a.visits[parent]++;
+		int result;
+		if (!a.isProven(bestChild)) {
+			final int move = a.move[bestChild];
+			pos.makeEncodedMove(move);
+			try {
+				if (a.visits[bestChild] == 0) {
+					result = pos.scoreSign() * playout(pos);
+					a.updateScore(bestChild, result);
+					a.visits[bestChild] += playouts;
+					a.visits[parent] += playouts - 1;	// parent visit counted above
+					a.updateScore(parent, -result);
+					positionsSearched += playouts;
+					return result;
+				}
+				if (++depth > maxDepth) maxDepth = depth;
+				result = -mcts(a, bestChild, pos);
+				depth--;
+			} finally {
+				pos.unmakeEncodedMove(move);
+			}
+		} else result = a.score[bestChild];	// I.e. +-INFINITY
+
+		if (result == SCORE_INFINITY) {		// playerToMove wins
+			a.score[parent] = -SCORE_INFINITY;
+			provenNodes++;
+			if (depth == 0) throw new MCTSSearchException("Win from root position");
+			return SCORE_INFINITY;
+		}
+
+		if (result == -SCORE_INFINITY) {	// playerToMove loses
+			for (int child = first; child < end; child++) {
+				if (a.score[child] != -SCORE_INFINITY) {
+					a.updateScore(parent, 1);
+					return -1;				// At least one child is not loss for playerToMove
+				}
+			}
+			a.score[parent] = SCORE_INFINITY;
+			provenNodes++;
+			if (depth == 0) throw new MCTSSearchException("Loss from root position");
+			return -SCORE_INFINITY;			// All children are losses for playerToMove
+		}
+
+		a.visits[parent] += playouts - 1;	// parent visit counted above
+		a.updateScore(parent, -result);
+		return result;
+	}
+
 	/**
 	 * References:
 	 * http://www.ru.is/faculty/yngvi/pdf/WinandsBS08.pdf,
@@ -282,9 +396,9 @@ public class MCTSSolver extends MCTS {
 	 * @return "secure child" value of position
 	 */
     @Override
-    double pvScore(MCTSPosition child) {
+    double pvScore(int score, int visits) {
 		final double A = 1.0;
-		return child.getScore() + A/Math.sqrt(child.visits);
+		return score + A/Math.sqrt(visits);
 	}
 
 }
@@ -0,0 +1,55 @@
+package kgorlen.games.mcts;
+
+/**
+ * Predictor + UCT, as used by AlphaZero:
+ * 
+ * 		score/visits + c*P*sqrt(parentVisits)/(1+visits)
+ * 
+ * There is no move predictor, so the prior P of each child is
+ * 1/children.  An unvisited child has mean score 0.
+ * 
+ * References:
+ *   Silver et al., "Mastering the game of Go without human knowledge",
+ *   Nature 550 (2017), Methods.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class PUCTPolicy extends SelectionPolicy {
+	private final double c;		// Exploration coefficient
+
+	/**
+	 * @param c	exploration coefficient
+	 */
+	public PUCTPolicy(double c) {
+		this.c = c;
+	}
+
+	/**
+	 * @return	c*sqrt(parentVisits)/children
+	 * 
+	 * @see kgorlen.games.mcts.SelectionPolicy#parentTerm(int, int)
+	 */
+	@Override
+	public double parentTerm(int parentVisits, int children) {
+		if (parentVisits == 0) return 0;
+		return c * parentVisits * invSqrt(parentVisits) / children;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.SelectionPolicy#value(int, int, double)
+	 */
+	@Override
+	public double value(int score, int visits, double parentTerm) {
+		if (visits == 0) return parentTerm;
+		return (double) score / visits + parentTerm / (1 + visits);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("PUCT c=%f", c);
+	}
+}
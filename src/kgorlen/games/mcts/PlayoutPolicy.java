@@ -0,0 +1,28 @@
+package kgorlen.games.mcts;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulation step of MCTS: plays out a game from a leaf position and
+ * returns its result.  A light policy plays fast, nearly random moves;
+ * a heavy policy spends more time per move for results that converge
+ * in fewer playouts.  Policies hold no per-search state, so one
+ * instance may be used by several threads at once.
+ *
+ * @see MCTS#setPlayoutPolicy(PlayoutPolicy)
+ * @see MCTSPosition#playoutPolicy()
+ * 
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public interface PlayoutPolicy {
+	/**
+	 * @param leaf		non-terminal position to play out, not modified
+	 * @param randGen	random number generator for move selection
+	 * @param plies		incremented by number of moves played, or null
+	 * @return			result from X's point of view: +1 = X win,
+	 * 					0 = draw, -1 = O win
+	 */
+	int playout(MCTSPosition leaf, Random randGen, LongAdder plies);
+}
@@ -0,0 +1,86 @@
+package kgorlen.games.mcts;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Consumption of SearchLimits by one or more MCTS workers searching
+ * the same tree.  The iteration limit is checked exactly; the clock,
+ * playout and node limits are checked every CHECK_INTERVAL iterations,
+ * so they cost almost nothing per iteration and may be exceeded by the
+ * work of a few iterations.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+class SearchBudget {
+	static final int CHECK_INTERVAL = 16;	// Iterations between checks, power of 2
+
+	private final long maxIterations;
+	private final long maxPlayouts;
+	private final long maxNodes;
+	private final long timeBudget;			// Nanoseconds
+	private final long start;				// System.nanoTime() at start of search
+	private final AtomicLong iterations = new AtomicLong();
+	private final LongAdder playouts = new LongAdder();
+	private final LongAdder nodes = new LongAdder();
+	private volatile boolean stopped;
+
+	/**
+	 * @param limits	limits of search
+	 * @param start		System.nanoTime() at start of search
+	 */
+	SearchBudget(SearchLimits limits, long start) {
+		maxIterations = limits.getMaxIterations() > 0 ? limits.getMaxIterations() : Long.MAX_VALUE;
+		maxPlayouts = limits.getMaxPlayouts() > 0 ? limits.getMaxPlayouts() : Long.MAX_VALUE;
+		maxNodes = limits.getMaxNodes() > 0 ? limits.getMaxNodes() : Long.MAX_VALUE;
+		timeBudget = limits.getTimeLimit() > 0 ? limits.getTimeLimit() * 1000000 : Long.MAX_VALUE;
+		this.start = start;
+	}
+
+	/**
+	 * @return	number of the iteration to start, or 0 if the budget
+	 * 			is exhausted or search stopped
+	 */
+	long nextIteration() {
+		if (stopped) return 0;
+		long i = iterations.incrementAndGet();
+		if (i > maxIterations) return stop();
+		if ((i & (CHECK_INTERVAL-1)) == 0) {
+			if (playouts.sum() >= maxPlayouts || nodes.sum() >= maxNodes
+					|| System.nanoTime() - start > timeBudget) return stop();
+		}
+		return i;
+	}
+
+	/**
+	 * Stop all workers using this budget
+	 *
+	 * @return	0
+	 */
+	long stop() {
+		stopped = true;
+		return 0;
+	}
+
+	/**
+	 * @param n	number of playouts run
+	 */
+	void addPlayouts(int n) {
+		playouts.add(n);
+	}
+
+	/**
+	 * @param n	number of tree nodes created
+	 */
+	void addNodes(int n) {
+		nodes.add(n);
+	}
+
+	/**
+	 * @return	number of tree nodes created
+	 */
+	long getNodes() {
+		return nodes.sum();
+	}
+}
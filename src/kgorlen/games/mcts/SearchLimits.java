@@ -0,0 +1,71 @@
+package kgorlen.games.mcts;
+
+/**
+ * Limits on an MCTS search: the search stops when any limit is
+ * reached, or when the root position is solved.  A limit of 0 means
+ * no limit.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class SearchLimits {
+	private final long timeLimit;		// Milliseconds
+	private final long maxPlayouts;		// Playouts (positions searched)
+	private final long maxNodes;		// Tree nodes created
+	private final long maxIterations;	// MCTS iterations
+
+	/**
+	 * @param timeLimit		maximum elapsed time in milliseconds
+	 * @param maxPlayouts	maximum number of playouts
+	 * @param maxNodes		maximum number of tree nodes created
+	 * @param maxIterations	maximum number of MCTS iterations
+	 */
+	public SearchLimits(long timeLimit, long maxPlayouts, long maxNodes, long maxIterations) {
+		this.timeLimit = timeLimit;
+		this.maxPlayouts = maxPlayouts;
+		this.maxNodes = maxNodes;
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * @param timeLimit		maximum elapsed time in milliseconds
+	 * @param maxPlayouts	maximum number of playouts
+	 * @param maxNodes		maximum number of tree nodes created
+	 */
+	public SearchLimits(long timeLimit, long maxPlayouts, long maxNodes) {
+		this(timeLimit, maxPlayouts, maxNodes, 0);
+	}
+
+	/**
+	 * @param iterations	maximum number of MCTS iterations
+	 * @return				SearchLimits for iteration count only
+	 */
+	public static SearchLimits iterations(long iterations) {
+		return new SearchLimits(0, 0, 0, iterations);
+	}
+
+	public long getTimeLimit() {
+		return timeLimit;
+	}
+
+	public long getMaxPlayouts() {
+		return maxPlayouts;
+	}
+
+	public long getMaxNodes() {
+		return maxNodes;
+	}
+
+	public long getMaxIterations() {
+		return maxIterations;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("time=%dms, playouts=%d, nodes=%d, iterations=%d",
+				timeLimit, maxPlayouts, maxNodes, maxIterations);
+	}
+}
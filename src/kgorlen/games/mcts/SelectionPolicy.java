@@ -0,0 +1,61 @@
+package kgorlen.games.mcts;
+
+/**
+ * Value of a child node for MCTS selection: select() picks the child
+ * with the greatest value.  Terms depending only on the parent are
+ * computed once per select() by parentTerm() and passed to value()
+ * for each child.  Policies hold no per-search state, so one instance
+ * may be shared by all workers of a parallel search.
+ * 
+ * Ties are broken in favor of the first child, so unvisited children
+ * are tried in move generator order.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public abstract class SelectionPolicy {
+	static final int TABLE_SIZE = 4096;		// Visit counts with tabulated log/sqrt
+	private static final double[] LOG = new double[TABLE_SIZE];
+	private static final double[] INV_SQRT = new double[TABLE_SIZE];
+
+	static {
+		LOG[0] = Double.NEGATIVE_INFINITY;
+		INV_SQRT[0] = Double.POSITIVE_INFINITY;
+		for (int n = 1; n < TABLE_SIZE; n++) {
+			LOG[n] = Math.log(n);
+			INV_SQRT[n] = 1.0/Math.sqrt(n);
+		}
+	}
+
+	/**
+	 * @param n	visit count >= 0
+	 * @return	natural logarithm of n
+	 */
+	static final double log(int n) {
+		return n < TABLE_SIZE ? LOG[n] : Math.log(n);
+	}
+
+	/**
+	 * @param n	visit count >= 0
+	 * @return	1/sqrt(n)
+	 */
+	static final double invSqrt(int n) {
+		return n < TABLE_SIZE ? INV_SQRT[n] : 1.0/Math.sqrt(n);
+	}
+
+	/**
+	 * @param parentVisits	visits of parent node
+	 * @param children		number of children of parent node
+	 * @return				term passed to value() for each child
+	 */
+	public abstract double parentTerm(int parentVisits, int children);
+
+	/**
+	 * @param score			total score of child, from the point of view of
+	 * 						the side making the child's move
+	 * @param visits		visits of child, including pending virtual losses
+	 * @param parentTerm	value returned by parentTerm()
+	 * @return				selection value of child
+	 */
+	public abstract double value(int score, int visits, double parentTerm);
+}
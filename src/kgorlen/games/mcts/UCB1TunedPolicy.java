@@ -0,0 +1,55 @@
+package kgorlen.games.mcts;
+
+/**
+ * UCB1-Tuned: UCT with the exploration term bounded by an estimate of
+ * the variance of the child's results.  Nodes keep only the sum of the
+ * results, so the variance of results -1..+1 with mean m is taken as
+ * its upper bound 1-m*m, i.e. as if no playout were a draw.  Scaled
+ * to results in the range -1..+1:
+ * 
+ * 		m + 2*sqrt(ln(N)/n * min(1/4, (1-m*m)/4 + sqrt(2*ln(N)/n)))
+ * 
+ * where m = score/visits, N = parentVisits+1, n = visits.  Unvisited
+ * children are selected first.
+ * 
+ * References:
+ *   Auer, Cesa-Bianchi, and Fischer, "Finite-time Analysis of the
+ *   Multiarmed Bandit Problem", Machine Learning 47 (2002), section 4.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class UCB1TunedPolicy extends SelectionPolicy {
+	private static final double SQRT2 = Math.sqrt(2.0);
+
+	/**
+	 * @return	sqrt(ln(parentVisits+1))
+	 * 
+	 * @see kgorlen.games.mcts.SelectionPolicy#parentTerm(int, int)
+	 */
+	@Override
+	public double parentTerm(int parentVisits, int children) {
+		return Math.sqrt(log(parentVisits+1));
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.SelectionPolicy#value(int, int, double)
+	 */
+	@Override
+	public double value(int score, int visits, double parentTerm) {
+		if (visits == 0) return Double.POSITIVE_INFINITY;
+		final double mean = (double) score / visits;
+		final double m = Math.max(-1.0, Math.min(1.0, mean));	// proven scores are +-SCORE_INFINITY
+		final double explore = parentTerm * invSqrt(visits);	// sqrt(ln(N)/n)
+		final double variance = Math.min(0.25, (1.0 - m*m)/4.0 + SQRT2*explore);
+		return mean + 2.0 * explore * Math.sqrt(variance);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "UCB1-Tuned";
+	}
+}
@@ -0,0 +1,53 @@
+package kgorlen.games.mcts;
+
+/**
+ * Upper Confidence Bounds for Trees:
+ * 
+ * 		score/visits + c*sqrt(ln(parentVisits+1)/visits)
+ * 
+ * Unvisited children are selected first.
+ * 
+ * References:
+ *   http://mcts.ai/code/java.html
+ *   http://scalab.uc3m.es/~seminarios/seminar11/slides/lucas2.pdf
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class UCTPolicy extends SelectionPolicy {
+	private final double c;		// UCT coefficient
+
+	/**
+	 * @param c	Upper Confidence Bounds for Trees (UCT) coefficient
+	 */
+	public UCTPolicy(double c) {
+		this.c = c;
+	}
+
+	/**
+	 * @return	c*sqrt(ln(parentVisits+1))
+	 * 
+	 * @see kgorlen.games.mcts.SelectionPolicy#parentTerm(int, int)
+	 */
+	@Override
+	public double parentTerm(int parentVisits, int children) {
+		return c * Math.sqrt(log(parentVisits+1));
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.SelectionPolicy#value(int, int, double)
+	 */
+	@Override
+	public double value(int score, int visits, double parentTerm) {
+		if (visits == 0) return Double.POSITIVE_INFINITY;
+		return (double) score / visits + parentTerm * invSqrt(visits);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("UCT c=%f", c);
+	}
+}
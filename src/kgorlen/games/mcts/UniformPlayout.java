@@ -0,0 +1,99 @@
+package kgorlen.games.mcts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import kgorlen.games.Log;
+import kgorlen.games.Move;
+import kgorlen.games.MoveGenerator;
+
+/**
+ * Light playout policy for any MCTSPosition: play a winning move if
+ * there is one, otherwise a uniformly random move, until win or draw.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class UniformPlayout implements PlayoutPolicy {
+	private final static Logger LOGGER = Log.LOGGER;
+
+	final int maxPlies;		// Moves before cutoff to heuristic(), 0 for none
+
+	public UniformPlayout() {
+		this(0);
+	}
+
+	/**
+	 * @param maxPlies	moves before cutoff to heuristic(), 0 for none
+	 */
+	UniformPlayout(int maxPlies) {
+		this.maxPlies = maxPlies;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.PlayoutPolicy#playout(kgorlen.games.mcts.MCTSPosition, java.util.Random, java.util.concurrent.atomic.LongAdder)
+	 */
+	@Override
+	public int playout(MCTSPosition leaf, Random randGen, LongAdder plies) {
+		MCTSPosition parent = leaf;
+		int n = 0;
+
+		try {
+			while (true) {
+				if (n == maxPlies && n > 0) return parent.heuristic();
+
+				List<MCTSPosition> positions = new ArrayList<MCTSPosition>();
+				MoveGenerator gen = parent.allMoves();
+				assert gen.hasNext() : "Attempt to evaluate terminal position";
+
+				while (gen.hasNext()) {
+					Move move = gen.next();
+					MCTSPosition child = (MCTSPosition) parent.copy();
+					child.makeMove(move);
+
+					if (child.isWin()) {
+						final int winScore = child.scoreWin();
+						LOGGER.finer(() -> String.format(
+								"Playout move %s to ply %d is win by %s, score %+d:%n%s",
+								move.toString(), child.getPly(), child.sideLastMoved(), winScore,
+								child.toString() ));
+						n++;
+						return winScore;
+					}
+
+					positions.add(child);
+				}
+
+				MCTSPosition child = positions.get(randGen.nextInt(positions.size()));
+				n++;
+
+				LOGGER.finest(() -> String.format(
+						"%s playing move %s to ply %d...%n%s",
+						child.sideLastMoved(), child.getMove().toString(), child.getPly(), child.toString() ));
+
+				if (child.isDraw()) {
+					final int drawScore = leaf.scoreSign() * child.scoreDraw();
+					LOGGER.finer(() -> String.format(
+							"Playout move %s to ply %d by %s is draw, score %+d:%n%s",
+							child.getMove().toString(), child.getPly(), child.sideLastMoved(), drawScore,
+							child.toString() ));
+					return drawScore;
+				}
+				parent = child;
+			}
+		} finally {
+			if (plies != null) plies.add(n);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "uniform";
+	}
+}
@@ -0,0 +1,85 @@
+package kgorlen.games.mcts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import kgorlen.games.Move;
+import kgorlen.games.MoveGenerator;
+
+/**
+ * Heavy playout policy for any MCTSPosition: play a winning move if
+ * there is one, otherwise a random move after which the opponent has
+ * no winning reply, i.e. block an immediate loss.  If every move
+ * loses, play any of them.
+ * 
+ * Each move costs a search two plies deep; see Connect4Playout for a
+ * bitboard version.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class WinOrBlockPlayout implements PlayoutPolicy {
+
+	/**
+	 * @param pos	non-terminal position
+	 * @return		true if side to move has a winning move
+	 */
+	private static boolean hasWin(MCTSPosition pos) {
+		MoveGenerator gen = pos.moveGenerator();
+		while (gen.hasNext()) {
+			Move move = gen.next();
+			pos.makeMove(move);
+			final boolean win = pos.isWin();
+			pos.unmakeMove(move);
+			if (win) return true;
+		}
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.mcts.PlayoutPolicy#playout(kgorlen.games.mcts.MCTSPosition, java.util.Random, java.util.concurrent.atomic.LongAdder)
+	 */
+	@Override
+	public int playout(MCTSPosition leaf, Random randGen, LongAdder plies) {
+		MCTSPosition parent = leaf;
+		int n = 0;
+
+		try {
+			while (true) {
+				List<MCTSPosition> positions = new ArrayList<MCTSPosition>();
+				List<MCTSPosition> safe = new ArrayList<MCTSPosition>();
+				MoveGenerator gen = parent.allMoves();
+				assert gen.hasNext() : "Attempt to evaluate terminal position";
+
+				while (gen.hasNext()) {
+					MCTSPosition child = (MCTSPosition) parent.copy();
+					child.makeMove(gen.next());
+					if (child.isWin()) {
+						n++;
+						return child.scoreWin();
+					}
+					positions.add(child);
+					if (child.isDraw() || !hasWin(child)) safe.add(child);
+				}
+
+				if (!safe.isEmpty()) positions = safe;
+				MCTSPosition child = positions.get(randGen.nextInt(positions.size()));
+				n++;
+				if (child.isDraw()) return child.scoreDraw();
+				parent = child;
+			}
+		} finally {
+			if (plies != null) plies.add(n);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "win-or-block";
+	}
+}
@@ -31,6 +31,25 @@ public class PotionGenerator implements MoveGenerator {
 				),
 	};
 	
+	/**
+	 * @param r	Reaction
+	 * @return	index of specified Reaction
+	 */
+	static int indexOf(Reaction r) {
+		for (int i = 0; i < reaction.length; i++) {
+			if (reaction[i] == r) return i;
+		}
+		throw new RuntimeException("Unknown reaction: " + r.toString());
+	}
+	
+	/**
+	 * @param i	index of Reaction
+	 * @return	Reaction at specified index
+	 */
+	static Reaction getReaction(int i) {
+		return reaction[i];
+	}
+	
 	public PotionGenerator(PotionStock p) {
 		currentStock = p;
 		lastReaction = 0;
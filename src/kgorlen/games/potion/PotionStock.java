@@ -3,6 +3,8 @@
  */
 package kgorlen.games.potion;
 
+import java.util.Random;
+
 import kgorlen.games.Move;
 import kgorlen.games.MoveGenerator;
 import kgorlen.games.Position;
@@ -17,6 +19,13 @@ import kgorlen.games.potion.PotionGenerator;
 public class PotionStock implements Position {
 	private int[] amount = new int[Ingredient.values.length];
 	private int numReactions = 0;
+	private long key = 0;		// sum of amount[i]*ZOBRIST[i]
+
+	private static final long[] ZOBRIST = new long[Ingredient.values.length];
+	static {
+		Random r = new Random(0x5eedL);
+		for (int i = 0; i < ZOBRIST.length; i++) ZOBRIST[i] = r.nextLong() | 1;
+	}
 
 	/* (non-Javadoc)
 	 * @see kgorlen.games.Position#copy()
@@ -25,6 +34,7 @@ public class PotionStock implements Position {
 	public PotionStock copy() {
 		PotionStock p = new PotionStock();	// must make a deep copy
 		p.numReactions = numReactions;
+		p.key = key;
 		for (int i = 0; i < amount.length; i++) {
 			p.amount[i] = amount[i];
 		}
@@ -38,10 +48,12 @@ public class PotionStock implements Position {
 	public int setAmount(Ingredient i, int amount) {
 		if (amount < 0) throw new RuntimeException("Ingredient amount <0");
 		
+		key += (amount - this.amount[i.ordinal()]) * ZOBRIST[i.ordinal()];
 		return this.amount[i.ordinal()] = amount;
 	}
 	
 	public int addAmount(Ingredient i, int amount) {
+		key += amount * ZOBRIST[i.ordinal()];
 		return this.amount[i.ordinal()] += amount;
 	}
 	
@@ -71,6 +83,33 @@ public class PotionStock implements Position {
 		numReactions++;
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#unmakeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public void unmakeMove(Move m) {
+		((Reaction) m).unbrew(this);
+		numReactions--;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#encodeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public int encodeMove(Move m) {
+		if (m == null) return 0;
+		return PotionGenerator.indexOf((Reaction) m) + 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#decodeMove(int)
+	 */
+	@Override
+	public Move decodeMove(int code) {
+		if (code == 0) return null;
+		return PotionGenerator.getReaction(code-1);
+	}
+
 	/* (non-Javadoc)
 	 * @see kgorlen.games.Position#evaluate()
 	 */
@@ -153,16 +192,65 @@ public class PotionStock implements Position {
 		print("");
 	}
 
+	/**
+	 * Zobrist-style key: the sum of each ingredient amount times a
+	 * random odd constant, updated by setAmount() and addAmount().
+	 * 
+	 * @see kgorlen.games.Position#key()
+	 */
+	@Override
+	public final long key() {
+		return key;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#keySchema()
+	 */
+	@Override
+	public String keySchema() {
+		return String.format("Potion %d ingredients: sum of amount*ZOBRIST, seed 0x5eed", ZOBRIST.length);
+	}
+
+	/**
+	 * Ingredients are distinct, so a stock has no symmetries.
+	 * 
+	 * @see kgorlen.games.Position#symmetry()
+	 */
+	@Override
+	public int symmetry() {
+		return 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#key(int)
+	 */
+	@Override
+	public long key(int symmetry) {
+		return key;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#transformMove(int, int)
+	 */
+	@Override
+	public int transformMove(int code, int symmetry) {
+		return code;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#untransformMove(int, int)
+	 */
+	@Override
+	public int untransformMove(int code, int symmetry) {
+		return code;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
 	 */
 	@Override
 	public int hashCode() {
-		int hashcode = 0;
-		for (Ingredient i: Ingredient.values) {
-			hashcode = hashcode*13 ^ amount[i.ordinal()];
-		}
-		return hashcode;
+		return (int) (key ^ (key >>> 32));
 	}
 
 	/* (non-Javadoc)
@@ -26,6 +26,12 @@ public class Reaction implements Move {
 		}
 		return true;
 	}
+	
+	public void unbrew(PotionStock stock) {
+		for (Reactant r: reactant) {
+			stock.addAmount(r.getName(), -r.getAmount());
+		}
+	}
 
 	@Override
 	public String toString() {
@@ -5,6 +5,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import kgorlen.games.tictactoe.TicTacToePosition;
+import kgorlen.games.Tablebase;
 import kgorlen.games.TreeSearch;
 import kgorlen.games.Variation;
 import kgorlen.games.NegaMaxAlphaBeta;
@@ -92,18 +93,54 @@ public class TicTacToe {
 		return false;
 	}
 	
+	/**
+	 * Search with MiniMax, NegaMax, and NegaMaxAlphaBeta and check
+	 * that their results agree with each other and the tablebase.
+	 * 
+	 * @param root		position to search
+	 * @param tablebasePvar	principal variation from tablebase
+	 */
+	static void checkSearches(TicTacToePosition root, Variation tablebasePvar) {
+		TreeSearch miniMax = new MiniMax();
+		TreeSearch negaMax = new NegaMax();
+		TreeSearch negaMaxPruned = new NegaMaxAlphaBeta();
+		Variation miniMaxPvar = miniMax.search(root, 10);
+		Variation negaMaxPvar = negaMax.search(root, 10);
+		if (!miniMaxPvar.equals(negaMaxPvar)) {
+			LOGGER.warning("MiniMax and NegaMax search results differ\n");
+			LOGGER.warning(String.format("MiniMax principal variation:%n%s",
+					miniMaxPvar.toString() ));
+			LOGGER.warning(String.format("NegaMax principal variation:%n%s",
+					negaMaxPvar.toString() ));
+		}
+		TicTacToeMoveGenerator.resetStatistics();
+		Variation negaMaxPrunedPvar = negaMaxPruned.search(root, 10);
+		if (!negaMaxPrunedPvar.getMove().equals(negaMaxPvar.getMove())
+				|| negaMaxPrunedPvar.getScore() != negaMaxPvar.getScore()) {
+			LOGGER.warning("NegaMax and NegaMaxAlphaBeta search results differ:\n");
+			LOGGER.warning(String.format("  NegaMax move %s (score=%d)%n  NegaMaxAlphaBeta move %s (score=%d)%n",
+					negaMaxPvar.getMove().toString(), negaMaxPvar.getScore(),
+					negaMaxPrunedPvar.getMove().toString(), negaMaxPrunedPvar.getScore() ));
+
+		}
+		TicTacToeMoveGenerator.logStatistics();
+		if (tablebasePvar.getScore() != negaMaxPvar.getScore()) {
+			LOGGER.warning(String.format("Tablebase score=%d, NegaMax score=%d%n",
+					tablebasePvar.getScore(), negaMaxPvar.getScore()));
+		}
+	}
+
 	/**
 	 * Play Tic Tac Toe games until quit (q) command entered
 	 * 
-	 * @param args none
+	 * @param args "search" to check tablebase moves by searching
 	 */
 	public static void main(String []args){
 		LOGGER.setLevel(Level.INFO);
+		final boolean search = args.length > 0 && args[0].equals("search");
+		Tablebase tablebase = new TicTacToeTablebase();
 	
 		while (true) {
-			TreeSearch miniMax = new MiniMax();
-			TreeSearch negaMax = new NegaMax();
-			TreeSearch negaMaxPruned = new NegaMaxAlphaBeta();
 			TicTacToePosition root = new TicTacToePosition();	// Initialize game
 
 			System.out.print("Enter 'x', 'o', 'd', or 'q':");
@@ -116,30 +153,12 @@ public class TicTacToe {
 			case "O":
 			case "o": {		// Machine plays X
 				while (!isGameOver(root)) {
-					Variation miniMaxPvar = miniMax.search(root, 10);
-					Variation negaMaxPvar = negaMax.search(root, 10);
-					if (!miniMaxPvar.equals(negaMaxPvar)) {
-						LOGGER.warning("MiniMax and NegaMax search results differ\n");
-						LOGGER.warning(String.format("MiniMax principal variation:%n%s",
-								miniMaxPvar.toString() ));
-						LOGGER.warning(String.format("NegaMax principal variation:%n%s",
-								negaMaxPvar.toString() ));
-					}
-					TicTacToeMoveGenerator.resetStatistics();
-					Variation negaMaxPrunedPvar = negaMaxPruned.search(root, 10);
-					if (!negaMaxPrunedPvar.getMove().equals(negaMaxPvar.getMove())
-							|| negaMaxPrunedPvar.getScore() != negaMaxPvar.getScore()) {
-						LOGGER.warning("NegaMax and NegaMaxAlphaBeta search results differ:\n");
-						LOGGER.warning(String.format("  NegaMax move %s (score=%d)%n  NegaMaxAlphaBeta move %s (score=%d)%n",
-								negaMaxPvar.getMove().toString(), negaMaxPvar.getScore(),
-								negaMaxPrunedPvar.getMove().toString(), negaMaxPrunedPvar.getScore() ));
-
-					}
-					TicTacToeMoveGenerator.logStatistics();
+					Variation pvar = tablebase.probe(root);
+					if (search) checkSearches(root, pvar);
 					System.out.format("Machine's move %s (score=%d):%n",
-							negaMaxPrunedPvar.getMove().toString(),
-							negaMaxPrunedPvar.getScore());
-					root.makeMove(negaMaxPrunedPvar.getMove());
+							pvar.getMove().toString(),
+							pvar.getScore());
+					root.makeMove(pvar.getMove());
 					root.print();
 					if (isGameOver(root)) break;
 					opponentsMove(root);
@@ -53,18 +53,26 @@ public class TicTacToeMoveGenerator implements MoveGenerator {
 	 * Only the moves generated by CENTER, CORNERS, and SIDES are
 	 * necessary.  The other states attempt to searching likely
 	 * better moves first, which narrows the search by increasing
-	 * the chances of alpha/beta cutoffs.
+	 * the chances of alpha/beta cutoffs.  Moves equivalent by a
+	 * symmetry of a symmetric position are generated only once
+	 * if distinct is true.
 	 * 
-	 * @param p	starting/current GamePosition
+	 * @param p			starting/current GamePosition
+	 * @param killers	killer moves from sibling positions
+	 * @param distinct	true to skip moves equivalent by a symmetry
 	 */
-	public TicTacToeMoveGenerator(TicTacToePosition p, Move[] killers) {
+	public TicTacToeMoveGenerator(TicTacToePosition p, Move[] killers, boolean distinct) {
 		currentState = State.INITIAL;
 		currentPosition = p;
 		this.killers = killers;
-		empty = p.empty();
+		empty = distinct ? p.distinctMoves() : p.empty();
 		mysq = p.occupiedOnMove();
 		opsq = p.occupiedOffMove();
 	}
+
+	public TicTacToeMoveGenerator(TicTacToePosition p, Move[] killers) {
+		this(p, killers, true);
+	}
 	
 	public TicTacToeMoveGenerator(TicTacToePosition p) {
 		this(p, new Move[0]);
@@ -0,0 +1,46 @@
+package kgorlen.games.tictactoe;
+
+import java.util.Arrays;
+
+import kgorlen.games.Perft;
+
+/**
+ * Perft of TicTacToe moves.
+ * 
+ * Usage: TicTacToePerft position depth [divide] [distinct] [threads=n] [hash=MB]
+ * 
+ * where position is the squares 1-9 played from the empty board,
+ * e.g. "51", or "-" for the empty board.
+ *
+ * @author Keith gorlen@comcast.net
+ *
+ * @see kgorlen.games.Perft
+ */
+public class TicTacToePerft {
+
+	/**
+	 * @param squares	digits 1-9 of squares played, or "-"
+	 * @return			position after squares played
+	 */
+	static TicTacToePosition parse(String squares) {
+		TicTacToePosition p = new TicTacToePosition();
+		if (squares.equals("-")) return p;
+		for (char c : squares.toCharArray()) {
+			if (c < '1' || c > '9')
+				throw new IllegalArgumentException(String.format("Invalid square %c in %s", c, squares));
+			TicTacToeMove move = new TicTacToeMove(c - '0');
+			if (p.isWin() || !p.isValidMove(move))
+				throw new IllegalArgumentException(String.format("Illegal move %c in %s", c, squares));
+			p.makeMove(move);
+		}
+		return p;
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: TicTacToePerft position depth [divide] [distinct] [threads=n] [hash=MB]");
+			System.exit(1);
+		}
+		Perft.run(parse(args[0]), Arrays.copyOfRange(args, 1, args.length));
+	}
+}
@@ -39,6 +39,7 @@ import kgorlen.games.tictactoe.TicTacToeTTEntry;
 public class TicTacToePosition implements GamePosition {
 	private short[] board;		// board[0] = Xs, board[1] = Os
     private short ply;		// Count of occupied squares
+    private int key;		// board[0] | board[1]<<12
 
 	/**
 	 * Construct initial (empty) board position.
@@ -46,6 +47,7 @@ public class TicTacToePosition implements GamePosition {
 	public TicTacToePosition() {
 		board = new short[2];
 		ply = 0;
+		key = 0;
 	}
 
 	/**
@@ -58,6 +60,19 @@ public class TicTacToePosition implements GamePosition {
 		board[0] = p.board[0];
 		board[1] = p.board[1];
 		ply = p.ply;
+		key = p.key;
+	}
+
+	/**
+	 * Construct position with specified squares occupied.
+	 * 
+	 * @param x	bitmap of X's squares
+	 * @param o	bitmap of O's squares
+	 */
+	TicTacToePosition(short x, short o) {
+		board = new short[] { x, o };
+		ply = (short) Integer.bitCount(x | o);
+		key = x | o << 12;
 	}
 
 	public TicTacToePosition copy() {
@@ -151,6 +166,24 @@ public class TicTacToePosition implements GamePosition {
 		makeMove(((TicTacToeMove)mv).toShort());
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#encodeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public int encodeMove(Move mv) {
+		if (mv == null) return 0;
+		return ((TicTacToeMove) mv).toShort();	// bitmask fits in 11 bits
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#decodeMove(int)
+	 */
+	@Override
+	public Move decodeMove(int code) {
+		if (code == 0) return null;
+		return new TicTacToeMove((short) code);
+	}
+
 	/**
 	 * Make specified move.
 	 * 
@@ -160,10 +193,32 @@ public class TicTacToePosition implements GamePosition {
 		assert isValidMove(mv): "Invalid move: 0x" + Integer.toHexString(mv);
 		
 		board[ply & 1] |= mv;	// What would board[ply++ & 1] |= mv do?
+		key |= mv << ((ply & 1) * 12);
 		ply++;
 		return;
     }
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#unmakeMove(kgorlen.games.Move)
+	 */
+	@Override
+	public void unmakeMove(Move mv) {
+		unmakeMove(((TicTacToeMove)mv).toShort());
+	}
+
+	/**
+	 * Take back specified move.
+	 * 
+	 * @param mv	bitmask of last move made
+	 */
+	public void unmakeMove(short mv) {
+		ply--;
+		assert (board[ply & 1] & mv) == mv : "Invalid unmove: 0x" + Integer.toHexString(mv);
+
+		board[ply & 1] &= ~mv;
+		key &= ~(mv << ((ply & 1) * 12));
+    }
+
 	/**
      * @return	true if last move made 3-in-a-row
      */
@@ -230,15 +285,16 @@ public class TicTacToePosition implements GamePosition {
 	}
 	
 	/**
-	 * Evaluate a quiescent position.  Not implemented because
-	 * Tic Tac Toe game tree is small (<9! = 362,880 positions)
-	 * thus can be exhaustively searched.
+	 * Evaluate a quiescent position.  The Tic Tac Toe game tree is
+	 * small (<9! = 362,880 positions) thus is normally exhaustively
+	 * searched; a depth-limited (e.g. iterative-deepening) search
+	 * scores an unfinished game as a draw.
 	 * 
-	 * @return	throws unchecked RuntimeException
+	 * @return	draw score
 	 */
 	@Override
 	public int evaluate() {		// Evaluate a quiescent position
-		throw new RuntimeException("Not implemented");
+		return scoreDraw();
 	}
 	
 	/* (non-Javadoc)
@@ -256,6 +312,14 @@ public class TicTacToePosition implements GamePosition {
 	public TicTacToeMoveGenerator moveGenerator() {
 		return new TicTacToeMoveGenerator(this, new Move[0]);
 	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.GamePosition#allMoves()
+	 */
+	@Override
+	public TicTacToeMoveGenerator allMoves() {
+		return new TicTacToeMoveGenerator(this, new Move[0], false);
+	}
 	
 	/* (non-Javadoc)
 	 * @see kgorlen.games.Position#newVariation()
@@ -334,12 +398,144 @@ public class TicTacToePosition implements GamePosition {
 		print("");
 	}
 
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#key()
+	 */
+	@Override
+	public final long key() {
+		return key;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#keySchema()
+	 */
+	@Override
+	public String keySchema() {
+		return "TicTacToe: board[0] | board[1]<<12, minimum of 8 symmetries";
+	}
+
+	/**
+	 * Swap the bits of b selected by mask with the bits d positions
+	 * higher.
+	 */
+	private static int deltaSwap(int b, int mask, int d) {
+		final int t = (b >>> d ^ b) & mask;
+		return b ^ t ^ t << d;
+	}
+
+	/**
+	 * Transform a bitmap by one of the 8 symmetries of the board, the
+	 * composition of the transformations selected by the bits of the
+	 * symmetry index, applied in order:
+	 * 
+	 * 		1	mirror left-right, i.e. reverse each row
+	 * 		2	flip top-bottom, i.e. swap first and last rows
+	 * 		4	transpose about the 1-5-9 diagonal
+	 * 
+	 * @param b			bitmap of squares in 0x777 layout
+	 * @param symmetry	index of transformation, 0-7
+	 * @return			transformed bitmap
+	 */
+	static int transform(int b, int symmetry) {
+		if ((symmetry & 1) != 0) b = (b & 0x444) >>> 2 | b & 0x222 | (b & 0x111) << 2;
+		if ((symmetry & 2) != 0) b = (b & 0x00f) << 8 | b & 0x0f0 | (b & 0xf00) >>> 8;
+		if ((symmetry & 4) != 0) b = deltaSwap(deltaSwap(b, 0x042, 3), 0x004, 6);
+		return b;
+	}
+
+	/**
+	 * Undo transform(), applying the same involutions in reverse order.
+	 * 
+	 * @param b			bitmap of squares in 0x777 layout
+	 * @param symmetry	index of transformation, 0-7
+	 * @return			bitmap before transformation
+	 */
+	static int untransform(int b, int symmetry) {
+		if ((symmetry & 4) != 0) b = deltaSwap(deltaSwap(b, 0x042, 3), 0x004, 6);
+		if ((symmetry & 2) != 0) b = (b & 0x00f) << 8 | b & 0x0f0 | (b & 0xf00) >>> 8;
+		if ((symmetry & 1) != 0) b = (b & 0x444) >>> 2 | b & 0x222 | (b & 0x111) << 2;
+		return b;
+	}
+
+	/**
+	 * Empty squares with one representative of each set of squares
+	 * equivalent under the symmetries that leave this position
+	 * unchanged, e.g. one corner, one side, and the center of the
+	 * empty board.  Most positions have no such symmetries.
+	 * 
+	 * @return	mask of empty squares, less symmetric duplicates
+	 */
+	public final short distinctMoves() {
+		final int empty = empty();
+		int stabilizer = 0;			// bit s set if symmetry s leaves position unchanged
+		for (int s = 1; s < 8; s++) {
+			if (key(s) == key) stabilizer |= 1 << s;
+		}
+		if (stabilizer == 0) return (short) empty;
+		int distinct = 0;
+		int covered = 0;			// squares equivalent to a distinct square
+		for (int m = empty; m != 0; m &= m-1) {
+			final int sq = m & -m;
+			if ((covered & sq) != 0) continue;
+			distinct |= sq;
+			for (int s = 1; s < 8; s++) {
+				if ((stabilizer & 1 << s) != 0) covered |= transform(sq, s);
+			}
+		}
+		return (short) distinct;
+	}
+
+	/**
+	 * @return	index of the dihedral image with the smallest key
+	 * 
+	 * @see kgorlen.games.Position#symmetry()
+	 */
+	@Override
+	public int symmetry() {
+		int best = 0;
+		long bestKey = key;
+		for (int s = 1; s < 8; s++) {
+			final long k = key(s);
+			if (k < bestKey) {
+				bestKey = k;
+				best = s;
+			}
+		}
+		return best;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#key(int)
+	 */
+	@Override
+	public long key(int symmetry) {
+		return transform(board[0], symmetry) | transform(board[1], symmetry) << 12;
+	}
+
+	/**
+	 * Move codes are bitmaps of the square moved to.
+	 * 
+	 * @see kgorlen.games.Position#transformMove(int, int)
+	 */
+	@Override
+	public int transformMove(int code, int symmetry) {
+		return transform(code, symmetry);
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Position#untransformMove(int, int)
+	 */
+	@Override
+	public int untransformMove(int code, int symmetry) {
+		return untransform(code, symmetry);
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
 	 */
 	@Override
 	public int hashCode() {
-		return board[0] | board[1]<<12;
+		return key;
 	}
 
 	/* (non-Javadoc)
@@ -0,0 +1,65 @@
+package kgorlen.games.tictactoe;
+
+import kgorlen.games.GamePosition;
+import kgorlen.games.Tablebase;
+
+/**
+ * Tablebase of all Tic-Tac-Toe positions, indexed by the base-3 number
+ * whose digits are the squares 1-9: 0 empty, 1 X, 2 O.  Positions are
+ * ranked by their canonical image, since TicTacToeMoveGenerator
+ * skips symmetric moves; the 3^9 = 19,683 indices include the 765
+ * canonical images of the 5,478 legal positions.
+ * 
+ * @author Keith gorlen@comcast.net
+ *
+ */
+public class TicTacToeTablebase extends Tablebase {
+	private static final int SIZE = 19683;		// 3^9
+	private static final short[] SQUARES = new short[9];	// bitmaps of squares 1-9
+
+	static {
+		for (int i = 0; i < 9; i++) {
+			SQUARES[i] = new TicTacToeMove(i+1).toShort();
+		}
+	}
+
+	/**
+	 * Construct and build tablebase of positions reachable
+	 * from the empty board
+	 */
+	public TicTacToeTablebase() {
+		super(SIZE, 9);
+		build(new TicTacToePosition());
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Tablebase#rank(kgorlen.games.GamePosition)
+	 */
+	@Override
+	public long rank(GamePosition gp) {
+		TicTacToePosition p = (TicTacToePosition) gp;
+		final boolean xToMove = (p.getPly() & 1) == 0;
+		final int symmetry = p.symmetry();
+		final int x = TicTacToePosition.transform(xToMove ? p.occupiedOnMove() : p.occupiedOffMove(), symmetry);
+		final int o = TicTacToePosition.transform(xToMove ? p.occupiedOffMove() : p.occupiedOnMove(), symmetry);
+		int index = 0;
+		for (short sq : SQUARES) {
+			index = 3*index + ((x & sq) != 0 ? 1 : (o & sq) != 0 ? 2 : 0);
+		}
+		return index;
+	}
+
+	/* (non-Javadoc)
+	 * @see kgorlen.games.Tablebase#unrank(long)
+	 */
+	@Override
+	public TicTacToePosition unrank(long index) {
+		short x = 0;
+		short o = 0;
+		for (int i = SQUARES.length - 1; i >= 0; i--, index /= 3) {
+			if (index % 3 == 1) x |= SQUARES[i];
+			else if (index % 3 == 2) o |= SQUARES[i];
+		}
+		return new TicTacToePosition(x, o);
+	}
+}